@@ -0,0 +1,183 @@
+/*
+ *     This is the source code of rover project.
+ *     Copyright (C)   Ali Nasrabadi  2018-2018
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package com.nasrabadiam.rover;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.RectF;
+
+import com.nasrabadiam.rover.engine.DensityPyramid;
+
+/**
+ * Shows a zoomed out land as tiles shaded by how many of their cells hold a weir or were
+ * visited, instead of drawing every cell. The tiles on screen are kept in a bitmap with one
+ * pixel per tile, drawn scaled up in one call. It is made again only when the level or the
+ * visible tiles change, a newly visited cell just updates its pixel.
+ */
+class DensityLayer {
+
+    private static final int PATH_COLOR = Color.RED;
+    private static final int WEIR_COLOR = Color.DKGRAY;
+    /**
+     * A tile with a single marked cell still has to show up.
+     */
+    private static final int MIN_ALPHA = 96;
+
+    private DensityPyramid weirs = new DensityPyramid(1);
+    private DensityPyramid visited = new DensityPyramid(1);
+
+    private Bitmap tiles;
+    private int[] pixels = new int[0];
+    private boolean valid;
+    private int level;
+    private int minTileX;
+    private int minTileY;
+    private int maxTileX;
+    private int maxTileY;
+
+    private final Rect source = new Rect();
+    private final RectF destination = new RectF();
+    private final Paint paint = new Paint();
+
+    void reset(int width, int height) {
+        int levels = DensityPyramid.levelsFor(width, height);
+        weirs = new DensityPyramid(levels);
+        visited = new DensityPyramid(levels);
+        valid = false;
+    }
+
+    /**
+     * The coarsest level there is, its tiles cover the whole land.
+     */
+    int levels() {
+        return weirs.levels();
+    }
+
+    void clearWeirs() {
+        weirs.clear();
+        valid = false;
+    }
+
+    void addWeir(int x, int y) {
+        weirs.add(x, y);
+        valid = false;
+    }
+
+    void clearVisited() {
+        visited.clear();
+        valid = false;
+    }
+
+    /**
+     * Counts a cell the rover visits for the first time.
+     */
+    void addVisited(int x, int y) {
+        visited.add(x, y);
+        if (!valid)
+            return;
+        int tileX = x >> level;
+        int tileY = y >> level;
+        if (tileX >= minTileX && tileX <= maxTileX && tileY >= minTileY && tileY <= maxTileY)
+            tiles.setPixel(tileX - minTileX, maxTileY - tileY, colorOf(tileX, tileY));
+    }
+
+    /**
+     * Draws the tiles covering the visible cells, on a canvas laid out in cells of the given
+     * size with the first row at the bottom.
+     */
+    void draw(Canvas canvas, int level, int minX, int minY, int maxX, int maxY,
+              int cellLength, int cellHeight, int verticalCellCount) {
+        if (maxX < minX || maxY < minY)
+            return;
+        int fromTileX = minX >> level;
+        int fromTileY = minY >> level;
+        int toTileX = maxX >> level;
+        int toTileY = maxY >> level;
+        if (!valid || level != this.level || fromTileX != minTileX || fromTileY != minTileY
+                || toTileX != maxTileX || toTileY != maxTileY) {
+            this.level = level;
+            minTileX = fromTileX;
+            minTileY = fromTileY;
+            maxTileX = toTileX;
+            maxTileY = toTileY;
+            buildTiles();
+        }
+
+        int span = 1 << level;
+        source.set(0, 0, maxTileX - minTileX + 1, maxTileY - minTileY + 1);
+        destination.set(minTileX * span * cellLength,
+                (verticalCellCount - (maxTileY + 1) * span) * cellHeight,
+                (maxTileX + 1) * span * cellLength,
+                (verticalCellCount - minTileY * span) * cellHeight);
+        canvas.drawBitmap(tiles, source, destination, paint);
+    }
+
+    private void buildTiles() {
+        int width = maxTileX - minTileX + 1;
+        int height = maxTileY - minTileY + 1;
+        if (tiles == null || tiles.getWidth() < width || tiles.getHeight() < height) {
+            int bitmapWidth = Math.max(width, tiles == null ? 0 : tiles.getWidth());
+            int bitmapHeight = Math.max(height, tiles == null ? 0 : tiles.getHeight());
+            if (tiles != null)
+                tiles.recycle();
+            tiles = Bitmap.createBitmap(bitmapWidth, bitmapHeight, Bitmap.Config.ARGB_8888);
+        }
+        if (pixels.length < width * height)
+            pixels = new int[width * height];
+        for (int row = 0; row < height; row++) {
+            int tileY = maxTileY - row;
+            for (int column = 0; column < width; column++) {
+                pixels[row * width + column] = colorOf(minTileX + column, tileY);
+            }
+        }
+        tiles.setPixels(pixels, 0, width, 0, 0, width, height);
+        valid = true;
+    }
+
+    /**
+     * Visited cells show over weirs, both darker the more of the tile they fill.
+     */
+    private int colorOf(int tileX, int tileY) {
+        float area = (float) (1L << (level * 2));
+        int count = visited.count(level, tileX, tileY);
+        if (count > 0)
+            return withDensity(PATH_COLOR, count / area);
+        count = weirs.count(level, tileX, tileY);
+        if (count > 0)
+            return withDensity(WEIR_COLOR, count / area);
+        return Color.TRANSPARENT;
+    }
+
+    private static int withDensity(int color, float density) {
+        int alpha = MIN_ALPHA + (int) ((255 - MIN_ALPHA) * Math.min(1f, density));
+        return (alpha << 24) | (color & 0x00FFFFFF);
+    }
+
+    void release() {
+        if (tiles != null) {
+            tiles.recycle();
+            tiles = null;
+        }
+        valid = false;
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ *     This is the source code of rover project.
+ *     Copyright (C)   Ali Nasrabadi  2018-2018
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package com.nasrabadiam.rover;
+
+import com.nasrabadiam.rover.engine.FrameStats;
+import com.nasrabadiam.rover.engine.WorldSnapshot;
+
+import java.util.List;
+
+/**
+ * Shows the land of a mission. Every method can be called from any thread, the display hands
+ * the work over to the thread it draws on.
+ */
+public interface MarsDisplay {
+    void resetView(LandSize landSize);
+
+    void setWeirs(List<Position> positions);
+
+    /**
+     * Hands over the latest snapshot of the mission. Snapshots that come in faster than the
+     * display draws are skipped.
+     */
+    void setWorld(WorldSnapshot snapshot);
+
+    /**
+     * Shows the {@link #getFrameStats() frame stats} over the land.
+     */
+    void setStatsVisible(boolean visible);
+
+    /**
+     * @return the timings of the frames drawn so far, safe to read on any thread.
+     */
+    FrameStats getFrameStats();
+}
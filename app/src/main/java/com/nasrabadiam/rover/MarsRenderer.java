@@ -0,0 +1,656 @@
+/*
+ *     This is the source code of rover project.
+ *     Copyright (C)   Ali Nasrabadi  2018-2018
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.nasrabadiam.rover;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Rect;
+
+import com.nasrabadiam.rover.engine.CellGrid;
+import com.nasrabadiam.rover.engine.ChunkedGrid;
+import com.nasrabadiam.rover.engine.FrameStats;
+import com.nasrabadiam.rover.engine.Headings;
+import com.nasrabadiam.rover.engine.SegmentLog;
+import com.nasrabadiam.rover.engine.WorldSnapshot;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Draws the land, the weirs, the paths and the rover onto a canvas. It holds no thread of its
+ * own and isn't thread safe, {@link MarsView} drives it from the UI thread and
+ * {@link MarsSurfaceView} from its render thread.
+ */
+class MarsRenderer {
+
+    private int horizontalCellCount = LandSize.DEFAULT.getWidth();
+    private int verticalCellCount = LandSize.DEFAULT.getHeight();
+
+    private int viewHeight;
+    private int viewWidth;
+    private int horizontalPadding;
+    private int verticalPadding;
+
+    /**
+     * Cells are laid out at this size at least and the {@link Viewport} scales them to the
+     * screen, so a land too large to fit still has cells big enough to zoom into.
+     */
+    private static final int MIN_CELL_SIZE = 32;
+    /**
+     * Grid lines closer than this on screen are left out, they would only fill the view.
+     */
+    private static final float MIN_GRID_SPACING = 4f;
+    /**
+     * Cells smaller than this on screen are shown as {@link DensityLayer density tiles}, the
+     * level picked so a tile is at least this big.
+     */
+    private static final float MIN_LOD_SIZE = 6f;
+
+    private int eachCellLength;
+    private int eachCellHeight;
+
+    private Paint linePaint = new Paint();
+    private Paint roverPaint = new Paint();
+    private Paint textPaint = new Paint();
+    private Paint spritePaint = new Paint(Paint.FILTER_BITMAP_FLAG);
+
+    /**
+     * What lies on every cell, as a kind and a direction byte. A cell's place on the canvas
+     * is worked out from its coordinates, see {@link #cellLeft(int)} and {@link #cellBottom(int)}.
+     */
+    private final CellGrid cells = new CellGrid();
+    private ChunkedGrid<Position> weirCells = new ChunkedGrid<>();
+    private final DensityLayer density = new DensityLayer();
+
+    private final FrameStats stats = new FrameStats();
+    private boolean statsVisible;
+    private WorldSnapshot shownWorld;
+    private final StringBuilder statsText = new StringBuilder();
+    private final Paint statsPaint = new Paint();
+    private final Paint statsBackgroundPaint = new Paint();
+    /**
+     * Where the overlay sits on screen, redrawn along with any change while it is shown.
+     */
+    private final Rect statsBounds = new Rect(0, 0, 420, 170);
+    private static final int STATS_LINE_HEIGHT = 36;
+    /**
+     * The density level drawn in the last frame, cells are drawn one by one at level 0.
+     */
+    private int lodLevel;
+
+    private final Viewport viewport = new Viewport();
+    /**
+     * The cells on screen, inclusive, worked out at the start of every frame.
+     */
+    private int visibleMinX;
+    private int visibleMinY;
+    private int visibleMaxX;
+    private int visibleMaxY;
+    /**
+     * The two lines of every path cell in the lines range, four floats each, so they all go
+     * out in one drawLines call. New path cells are appended as they arrive, the array is
+     * only gathered from the grid again when the visible cells, their size or the level
+     * change, or when a cell that already has lines is overwritten. It only grows, so a
+     * steady frame doesn't allocate.
+     */
+    private float[] pathLines = new float[LINE_FLOATS_PER_CELL * 64];
+    private int pathLineFloats;
+    private boolean pathLinesValid;
+    private int linesMinX;
+    private int linesMinY;
+    private int linesMaxX;
+    private int linesMaxY;
+    private final CellGrid.Visitor collectLinesVisitor = new CellGrid.Visitor() {
+        @Override
+        public void visit(int x, int y, int kind, int directions) {
+            if (kind == CellGrid.PATH)
+                addPathLines(x, y, directions);
+        }
+    };
+    private final ChunkedGrid.Visitor<Position> drawWeirVisitor = new ChunkedGrid.Visitor<Position>() {
+        @Override
+        public void visit(int x, int y, Position weir) {
+            backgroundCanvas.drawBitmap(weirSprite, cellLeft(x), cellBottom(y) - eachCellHeight, spritePaint);
+        }
+    };
+
+    private float[] gridLines = new float[0];
+
+    private static final int LINE_FLOATS_PER_CELL = 8;
+    /**
+     * Where each side of a cell is, indexed by {@link Headings heading}, as a fraction of
+     * the cell size from its bottom left.
+     */
+    private static final float[] SIDE_X = {0f, 1f, 0.5f, 0.5f};
+    private static final float[] SIDE_Y = {0.5f, 0.5f, 1f, 0f};
+
+    /**
+     * Area covering the cells changed since the last frame, in screen pixels. Nothing needs
+     * drawing unless a cell changes, so the display is idle while no mission is running.
+     */
+    private final Rect dirty = new Rect();
+    private boolean allDirty;
+    /**
+     * The grid lines and the weirs on screen, drawn once and copied onto every frame. It is
+     * drawn again only when the size, the land, the weirs or the viewport change.
+     */
+    private Bitmap background;
+    private final Canvas backgroundCanvas = new Canvas();
+    private boolean backgroundValid;
+    /**
+     * The rover for each {@link DIRECTION} and the weir, laid out relative to the bottom left
+     * of a cell. They are built again only when the cell size changes, so drawing a frame
+     * doesn't allocate.
+     */
+    private final android.graphics.Path[] roverGlyphs = new android.graphics.Path[DIRECTION.values().length];
+    private final float[][] roverLines = new float[DIRECTION.values().length][4];
+    private Bitmap weirSprite;
+    private boolean glyphsValid;
+
+    private WorldSnapshot drawnWorld;
+    private SegmentLog.View drawnPaths;
+    private boolean hasRover;
+    private int roverX;
+    private int roverY;
+    private int roverHeading;
+
+    MarsRenderer() {
+        linePaint.setColor(Color.DKGRAY);
+        linePaint.setStrokeWidth(4);
+
+        textPaint.setColor(Color.BLACK);
+        textPaint.setTextSize(36);
+
+        roverPaint.setColor(Color.RED);
+        roverPaint.setStrokeWidth(4);
+
+        statsPaint.setColor(Color.WHITE);
+        statsPaint.setTextSize(28);
+        statsBackgroundPaint.setColor(0xB0000000);
+    }
+
+    FrameStats getFrameStats() {
+        return stats;
+    }
+
+    void setStatsVisible(boolean visible) {
+        statsVisible = visible;
+        allDirty = true;
+    }
+
+    void resetLand(LandSize landSize) {
+        horizontalCellCount = landSize.getWidth();
+        verticalCellCount = landSize.getHeight();
+        measureCells();
+        cells.clear();
+        weirCells.clear();
+        density.reset(horizontalCellCount, verticalCellCount);
+        viewport.fit();
+        drawnWorld = null;
+        drawnPaths = null;
+        hasRover = false;
+        backgroundValid = false;
+        pathLinesValid = false;
+        allDirty = true;
+    }
+
+    void setWeirs(List<Position> positions) {
+        weirCells.clear();
+        density.clearWeirs();
+        for (Position weir : positions) {
+            if (weirCells.get(weir.getX(), weir.getY()) == null)
+                density.addWeir(weir.getX(), weir.getY());
+            weirCells.set(weir.getX(), weir.getY(), weir);
+        }
+        backgroundValid = false;
+        allDirty = true;
+    }
+
+    /**
+     * Brings the cells up to the newest snapshot. If it only adds segments to the one drawn
+     * before, just those are put on the land, otherwise the cells are built again.
+     */
+    void applyWorld(WorldSnapshot snapshot) {
+        if (snapshot == drawnWorld)
+            return;
+
+        SegmentLog.View paths = snapshot == null ? null : snapshot.getPaths();
+        int from;
+        if (paths != null && paths.continues(drawnPaths)) {
+            from = Math.max(drawnPaths.end(), paths.first());
+        } else {
+            cells.clear();
+            density.clearVisited();
+            hasRover = false;
+            pathLinesValid = false;
+            allDirty = true;
+            from = paths == null ? 0 : paths.first();
+        }
+        if (paths != null) {
+            for (int index = from; index < paths.end(); index++) {
+                int x = paths.x(index);
+                int y = paths.y(index);
+                int fromHeading = Headings.of(paths.from(index));
+                int toHeading = Headings.of(paths.to(index));
+                // not the kind, a rover standing on the cell hides that the path went through it
+                if (cells.markVisited(x, y))
+                    density.addVisited(x, y);
+                if (cells.kind(x, y) == CellGrid.PATH) {
+                    // its old lines are in the array, the grid only keeps the newest pass
+                    pathLinesValid = false;
+                } else if (pathLinesValid && inLinesRange(x, y)) {
+                    addPathLines(x, y, CellGrid.packPath(fromHeading, toHeading));
+                }
+                cells.setPath(x, y, fromHeading, toHeading);
+                markDirty(x, y);
+            }
+        }
+
+        if (snapshot != null && snapshot.getRoverPosition() != null) {
+            if (hasRover && cells.kind(roverX, roverY) == CellGrid.ROVER) {
+                cells.clearCell(roverX, roverY);
+                markDirty(roverX, roverY);
+            }
+            Position position = snapshot.getRoverPosition();
+            hasRover = true;
+            roverX = position.getX();
+            roverY = position.getY();
+            roverHeading = Headings.of(snapshot.getRoverDirection());
+            // the rover hides the path under it
+            if (cells.kind(roverX, roverY) == CellGrid.PATH)
+                pathLinesValid = false;
+            cells.setRover(roverX, roverY, roverHeading);
+            markDirty(roverX, roverY);
+        }
+        drawnWorld = snapshot;
+        drawnPaths = paths;
+        if (statsVisible && !dirty.isEmpty())
+            dirty.union(statsBounds);
+    }
+
+    private float cellLeft(int x) {
+        return x * eachCellLength;
+    }
+
+    private float cellBottom(int y) {
+        return (verticalCellCount - y) * eachCellHeight;
+    }
+
+    /**
+     * Marks the cell for redrawing, or the whole density tile holding it when zoomed out.
+     */
+    private void markDirty(int x, int y) {
+        int stroke = (int) Math.ceil(roverPaint.getStrokeWidth() * viewport.getZoom()) + 1;
+        int span = 1 << lodLevel;
+        int tileX = x >> lodLevel << lodLevel;
+        int tileY = y >> lodLevel << lodLevel;
+        float left = cellLeft(tileX);
+        float bottom = cellBottom(tileY);
+        float top = cellBottom(tileY + span - 1) - eachCellHeight;
+        dirty.union((int) viewport.toScreenX(left) - stroke,
+                (int) viewport.toScreenY(top) - stroke,
+                (int) viewport.toScreenX(cellLeft(tileX + span)) + stroke,
+                (int) viewport.toScreenY(bottom) + stroke);
+    }
+
+    /**
+     * Scales around the focus point, in screen pixels.
+     *
+     * @return whether the camera moved, everything is dirty then
+     */
+    boolean scaleBy(float factor, float focusX, float focusY) {
+        return viewportChanged(viewport.scaleBy(factor, focusX, focusY));
+    }
+
+    boolean panBy(float dx, float dy) {
+        return viewportChanged(viewport.panBy(dx, dy));
+    }
+
+    void fitLand() {
+        viewport.fit();
+        viewportChanged(true);
+    }
+
+    /**
+     * The whole frame changes with the camera, the background included.
+     */
+    private boolean viewportChanged(boolean changed) {
+        if (changed) {
+            backgroundValid = false;
+            allDirty = true;
+        }
+        return changed;
+    }
+
+    /**
+     * Whether the whole frame needs drawing since the last {@link #clearDirty()}, otherwise
+     * only {@link #getDirty()}.
+     */
+    boolean isAllDirty() {
+        return allDirty;
+    }
+
+    Rect getDirty() {
+        return dirty;
+    }
+
+    void clearDirty() {
+        allDirty = false;
+        dirty.setEmpty();
+    }
+
+    /**
+     * The size of the surface drawn on, the land is laid out inside the padding.
+     */
+    void setSize(int width, int height, int horizontalPadding, int verticalPadding) {
+        viewWidth = width;
+        viewHeight = height;
+        this.horizontalPadding = horizontalPadding;
+        this.verticalPadding = verticalPadding;
+        measureCells();
+    }
+
+    private void measureCells() {
+        int cellLength = Math.max(MIN_CELL_SIZE,
+                (viewWidth - horizontalPadding) / horizontalCellCount);
+        int cellHeight = Math.max(MIN_CELL_SIZE,
+                (viewHeight - verticalPadding) / verticalCellCount);
+        if (cellLength != eachCellLength || cellHeight != eachCellHeight) {
+            glyphsValid = false;
+            pathLinesValid = false;
+        }
+        eachCellLength = cellLength;
+        eachCellHeight = cellHeight;
+        backgroundValid = false;
+        viewport.setSize(viewWidth, viewHeight,
+                horizontalCellCount * eachCellLength, verticalCellCount * eachCellHeight);
+    }
+
+    void draw(Canvas canvas) {
+        long start = System.nanoTime();
+        buildGlyphs();
+        measureVisibleCells();
+        drawBackground(canvas);
+        canvas.save();
+        canvas.translate(-viewport.getPanX(), -viewport.getPanY());
+        canvas.scale(viewport.getZoom(), viewport.getZoom());
+        drawCells(canvas);
+        canvas.restore();
+
+        long end = System.nanoTime();
+        stats.recordFrame(start, end);
+        if (drawnWorld != null && drawnWorld != shownWorld) {
+            stats.recordSnapshotShown(drawnWorld.getStep(), drawnWorld.getPublishedNanos(), end);
+            shownWorld = drawnWorld;
+        }
+        if (statsVisible)
+            drawStats(canvas);
+    }
+
+    /**
+     * The overlay isn't counted in the draw time it shows.
+     */
+    private void drawStats(Canvas canvas) {
+        canvas.drawRect(statsBounds, statsBackgroundPaint);
+        float x = statsBounds.left + 12;
+        float y = statsBounds.top + STATS_LINE_HEIGHT;
+
+        statsText.setLength(0);
+        statsText.append("draw p50 ").append(stats.getDrawPercentileMillis(50))
+                .append(" p95 ").append(stats.getDrawPercentileMillis(95))
+                .append(" max ").append(stats.getMaxDrawMillis()).append(" ms");
+        canvas.drawText(statsText, 0, statsText.length(), x, y, statsPaint);
+
+        statsText.setLength(0);
+        statsText.append("dropped ").append(stats.getDroppedFrames())
+                .append(" of ").append(stats.getFrames());
+        canvas.drawText(statsText, 0, statsText.length(), x, y + STATS_LINE_HEIGHT, statsPaint);
+
+        statsText.setLength(0);
+        statsText.append("latency avg ").append(stats.getAverageLatencyMillis())
+                .append(" p95 ").append(stats.getLatencyPercentileMillis(95)).append(" ms");
+        canvas.drawText(statsText, 0, statsText.length(), x, y + STATS_LINE_HEIGHT * 2, statsPaint);
+
+        statsText.setLength(0);
+        statsText.append("steps/s ").append((long) stats.getStepsPerSecond());
+        canvas.drawText(statsText, 0, statsText.length(), x, y + STATS_LINE_HEIGHT * 3, statsPaint);
+    }
+
+    private void measureVisibleCells() {
+        if (eachCellLength <= 0 || eachCellHeight <= 0)
+            return;
+        visibleMinX = Math.max(0, (int) (viewport.toWorldX(0) / eachCellLength));
+        visibleMaxX = Math.min(horizontalCellCount - 1, (int) (viewport.toWorldX(viewWidth) / eachCellLength));
+        visibleMinY = Math.max(0, verticalCellCount - 1 - (int) (viewport.toWorldY(viewHeight) / eachCellHeight));
+        visibleMaxY = Math.min(verticalCellCount - 1, verticalCellCount - 1 - (int) (viewport.toWorldY(0) / eachCellHeight));
+
+        float cellSize = Math.min(eachCellLength, eachCellHeight) * viewport.getZoom();
+        lodLevel = 0;
+        while (cellSize * (1 << lodLevel) < MIN_LOD_SIZE && lodLevel < density.levels()) {
+            lodLevel++;
+        }
+    }
+
+    /**
+     * Lets go of the bitmaps, they are made again on the next frame.
+     */
+    void release() {
+        if (background != null) {
+            background.recycle();
+            background = null;
+        }
+        if (weirSprite != null) {
+            weirSprite.recycle();
+            weirSprite = null;
+        }
+        density.release();
+        glyphsValid = false;
+    }
+
+    private void buildGlyphs() {
+        if (glyphsValid)
+            return;
+        float bottomX = eachCellLength / 2;
+        float bottomY = -10;
+
+        float leftX = 10;
+        float leftY = -(eachCellHeight / 2);
+
+        float rightX = eachCellLength - 10;
+        float rightY = -(eachCellHeight / 2);
+
+        float topX = eachCellLength / 2;
+        float topY = -eachCellHeight + 10;
+
+        buildRoverGlyph(DIRECTION.TOP, topX, topY, leftX, leftY, rightX, rightY, bottomX, bottomY);
+        buildRoverGlyph(DIRECTION.LEFT, leftX, leftY, topX, topY, bottomX, bottomY, rightX, rightY);
+        buildRoverGlyph(DIRECTION.RIGHT, rightX, rightY, topX, topY, bottomX, bottomY, leftX, leftY);
+        buildRoverGlyph(DIRECTION.BOTTOM, bottomX, bottomY, leftX, leftY, rightX, rightY, topX, topY);
+
+        if (weirSprite != null)
+            weirSprite.recycle();
+        weirSprite = null;
+        if (eachCellLength > 0 && eachCellHeight > 0) {
+            weirSprite = Bitmap.createBitmap(eachCellLength, eachCellHeight, Bitmap.Config.ARGB_8888);
+            drawWeir(new Canvas(weirSprite), 0, eachCellHeight);
+        }
+        glyphsValid = true;
+    }
+
+    /**
+     * The triangle points to the tip, with a line from the back of the cell up to it.
+     */
+    private void buildRoverGlyph(DIRECTION direction, float tipX, float tipY, float sideX, float sideY,
+                                 float otherSideX, float otherSideY, float backX, float backY) {
+        int index = direction.ordinal();
+        android.graphics.Path glyph = roverGlyphs[index];
+        if (glyph == null) {
+            glyph = new android.graphics.Path();
+            roverGlyphs[index] = glyph;
+        } else {
+            glyph.reset();
+        }
+        glyph.moveTo(tipX, tipY);
+        glyph.lineTo(sideX, sideY);
+        glyph.lineTo(otherSideX, otherSideY);
+        glyph.lineTo(tipX, tipY);
+
+        float[] line = roverLines[index];
+        line[0] = backX;
+        line[1] = backY;
+        line[2] = tipX;
+        line[3] = tipY;
+    }
+
+    private void drawBackground(Canvas canvas) {
+        if (viewWidth <= 0 || viewHeight <= 0)
+            return;
+        if (background == null || background.getWidth() != viewWidth || background.getHeight() != viewHeight) {
+            if (background != null)
+                background.recycle();
+            background = Bitmap.createBitmap(viewWidth, viewHeight, Bitmap.Config.ARGB_8888);
+            backgroundValid = false;
+        }
+        if (!backgroundValid) {
+            background.eraseColor(Color.TRANSPARENT);
+            backgroundCanvas.setBitmap(background);
+            backgroundCanvas.save();
+            backgroundCanvas.translate(-viewport.getPanX(), -viewport.getPanY());
+            backgroundCanvas.scale(viewport.getZoom(), viewport.getZoom());
+            drawLand(backgroundCanvas);
+            if (weirSprite != null && lodLevel == 0)
+                weirCells.forEachIn(visibleMinX, visibleMinY, visibleMaxX, visibleMaxY, drawWeirVisitor);
+            backgroundCanvas.restore();
+            backgroundCanvas.setBitmap(null);
+            backgroundValid = true;
+        }
+        canvas.drawBitmap(background, 0, 0, null);
+    }
+
+    /**
+     * Draws the paths of the visible cells in one call, then the rover on top of them.
+     * Zoomed out, the density tiles stand in for the paths and the weirs.
+     */
+    private void drawCells(Canvas canvas) {
+        if (lodLevel > 0) {
+            density.draw(canvas, lodLevel, visibleMinX, visibleMinY, visibleMaxX, visibleMaxY,
+                    eachCellLength, eachCellHeight, verticalCellCount);
+            if (hasRover)
+                drawRover(canvas);
+            // nothing is appended while zoomed out
+            pathLinesValid = false;
+            return;
+        }
+        if (!pathLinesValid || linesMinX != visibleMinX || linesMinY != visibleMinY
+                || linesMaxX != visibleMaxX || linesMaxY != visibleMaxY)
+            collectPathLines();
+        if (pathLineFloats > 0)
+            canvas.drawLines(pathLines, 0, pathLineFloats, roverPaint);
+        if (hasRover && inLinesRange(roverX, roverY))
+            drawRover(canvas);
+    }
+
+    private void collectPathLines() {
+        linesMinX = visibleMinX;
+        linesMinY = visibleMinY;
+        linesMaxX = visibleMaxX;
+        linesMaxY = visibleMaxY;
+        pathLineFloats = 0;
+        cells.forEachIn(linesMinX, linesMinY, linesMaxX, linesMaxY, collectLinesVisitor);
+        pathLinesValid = true;
+    }
+
+    private boolean inLinesRange(int x, int y) {
+        return x >= linesMinX && x <= linesMaxX && y >= linesMinY && y <= linesMaxY;
+    }
+
+    private void addPathLines(int x, int y, int directions) {
+        if (pathLineFloats + LINE_FLOATS_PER_CELL > pathLines.length)
+            pathLines = Arrays.copyOf(pathLines, pathLines.length * 2);
+        int start = Headings.TURN_BACK[CellGrid.pathFrom(directions)];
+        int end = CellGrid.pathTo(directions);
+        float left = cellLeft(x);
+        float bottom = cellBottom(y);
+        float centerX = left + eachCellLength * 0.5f;
+        float centerY = bottom - eachCellHeight * 0.5f;
+
+        int offset = pathLineFloats;
+        pathLines[offset] = left + eachCellLength * SIDE_X[start];
+        pathLines[offset + 1] = bottom - eachCellHeight * SIDE_Y[start];
+        pathLines[offset + 2] = centerX;
+        pathLines[offset + 3] = centerY;
+        pathLines[offset + 4] = centerX;
+        pathLines[offset + 5] = centerY;
+        pathLines[offset + 6] = left + eachCellLength * SIDE_X[end];
+        pathLines[offset + 7] = bottom - eachCellHeight * SIDE_Y[end];
+        pathLineFloats += LINE_FLOATS_PER_CELL;
+    }
+
+    private void drawWeir(Canvas canvas, float startX, float startY) {
+        float centerX = startX + (eachCellLength / 2);
+        float centerY = startY - (eachCellHeight / 2);
+        canvas.drawText("#", centerX, centerY, textPaint);
+    }
+
+    private void drawRover(Canvas canvas) {
+        float[] line = roverLines[roverHeading];
+        canvas.save();
+        canvas.translate(cellLeft(roverX), cellBottom(roverY));
+        canvas.drawLine(line[0], line[1], line[2], line[3], roverPaint);
+        canvas.drawPath(roverGlyphs[roverHeading], roverPaint);
+        canvas.restore();
+    }
+
+    /**
+     * Draws the grid lines of the visible cells, unless they are too close to tell apart.
+     */
+    private void drawLand(Canvas canvas) {
+        float zoom = viewport.getZoom();
+        if (eachCellLength * zoom < MIN_GRID_SPACING || eachCellHeight * zoom < MIN_GRID_SPACING)
+            return;
+        int columns = visibleMaxX - visibleMinX + 2;
+        int rows = visibleMaxY - visibleMinY + 2;
+        if (columns <= 0 || rows <= 0)
+            return;
+        int size = (columns + rows) * 4;
+        if (gridLines.length < size)
+            gridLines = new float[size];
+
+        float top = (verticalCellCount - visibleMaxY - 1) * eachCellHeight;
+        float bottom = (verticalCellCount - visibleMinY) * eachCellHeight;
+        float left = visibleMinX * eachCellLength;
+        float right = (visibleMaxX + 1) * eachCellLength;
+        int offset = 0;
+        for (int i = visibleMinX; i < visibleMinX + columns; i++) {
+            gridLines[offset++] = i * eachCellLength;
+            gridLines[offset++] = top;
+            gridLines[offset++] = i * eachCellLength;
+            gridLines[offset++] = bottom;
+        }
+        for (int i = 0; i < rows; i++) {
+            gridLines[offset++] = left;
+            gridLines[offset++] = top + i * eachCellHeight;
+            gridLines[offset++] = right;
+            gridLines[offset++] = top + i * eachCellHeight;
+        }
+        canvas.drawLines(gridLines, 0, size, linePaint);
+    }
+}
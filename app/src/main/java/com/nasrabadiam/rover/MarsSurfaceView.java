@@ -0,0 +1,315 @@
+/*
+ *     This is the source code of rover project.
+ *     Copyright (C)   Ali Nasrabadi  2018-2018
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package com.nasrabadiam.rover;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.os.Build;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.util.AttributeSet;
+import android.view.MotionEvent;
+import android.view.SurfaceHolder;
+import android.view.SurfaceView;
+
+import com.nasrabadiam.rover.engine.FrameStats;
+import com.nasrabadiam.rover.engine.WorldSnapshot;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.RequiresApi;
+
+/**
+ * Draws the land on a render thread of its own into a surface, so the UI thread only
+ * delivers touches. The renderer is only ever touched on the render thread, everything
+ * else hands work over to it. The thread only runs while the surface exists, that is
+ * while the view is shown; changes to the land made meanwhile wait for it to start.
+ */
+public class MarsSurfaceView extends SurfaceView implements MarsDisplay, SurfaceHolder.Callback {
+
+    private final MarsRenderer renderer = new MarsRenderer();
+    private ViewportGestures gestures;
+
+    /**
+     * Guards starting and stopping the render thread against changes handed over from
+     * other threads.
+     */
+    private final Object threadLock = new Object();
+    private HandlerThread renderThread;
+    private volatile Handler renderHandler;
+    private final List<Runnable> pendingChanges = new ArrayList<>();
+    private volatile boolean statsVisible;
+
+    /**
+     * Held while a frame is drawn, so the surface can't go away in the middle of one.
+     */
+    private final Object surfaceLock = new Object();
+    private boolean surfaceReady;
+
+    private final AtomicReference<WorldSnapshot> world = new AtomicReference<>();
+    private final AtomicBoolean renderPosted = new AtomicBoolean();
+    private final Runnable renderRunnable = new Runnable() {
+        @Override
+        public void run() {
+            renderPosted.set(false);
+            renderer.applyWorld(world.get());
+            renderFrame();
+        }
+    };
+
+    public MarsSurfaceView(Context context) {
+        super(context);
+        init(context);
+    }
+
+    public MarsSurfaceView(Context context, @Nullable AttributeSet attrs) {
+        super(context, attrs);
+        init(context);
+    }
+
+    public MarsSurfaceView(Context context, @Nullable AttributeSet attrs, int defStyleAttr) {
+        super(context, attrs, defStyleAttr);
+        init(context);
+    }
+
+    @RequiresApi(api = Build.VERSION_CODES.LOLLIPOP)
+    public MarsSurfaceView(Context context, @Nullable AttributeSet attrs, int defStyleAttr, int defStyleRes) {
+        super(context, attrs, defStyleAttr, defStyleRes);
+        init(context);
+    }
+
+    private void init(Context context) {
+        getHolder().addCallback(this);
+
+        gestures = new ViewportGestures(context, new ViewportGestures.Listener() {
+            @Override
+            public void onScale(final float factor, final float focusX, final float focusY) {
+                onRenderThread(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (renderer.scaleBy(factor, focusX, focusY))
+                            requestRender();
+                    }
+                });
+            }
+
+            @Override
+            public void onPan(final float dx, final float dy) {
+                onRenderThread(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (renderer.panBy(dx, dy))
+                            requestRender();
+                    }
+                });
+            }
+
+            @Override
+            public void onFit() {
+                onRenderThread(new Runnable() {
+                    @Override
+                    public void run() {
+                        renderer.fitLand();
+                        requestRender();
+                    }
+                });
+            }
+        });
+    }
+
+    private void startRenderThread() {
+        synchronized (threadLock) {
+            if (renderThread != null)
+                return;
+            renderThread = new HandlerThread("mars-render");
+            renderThread.start();
+            Handler handler = new Handler(renderThread.getLooper());
+            handler.post(new Runnable() {
+                @Override
+                public void run() {
+                    renderer.setStatsVisible(statsVisible);
+                }
+            });
+            for (Runnable change : pendingChanges) {
+                handler.post(change);
+            }
+            pendingChanges.clear();
+            renderHandler = handler;
+        }
+        // a render asked for while the thread was down was dropped with it
+        renderPosted.set(false);
+        requestRender();
+    }
+
+    private void stopRenderThread() {
+        synchronized (threadLock) {
+            if (renderThread == null)
+                return;
+            final HandlerThread thread = renderThread;
+            renderHandler.post(new Runnable() {
+                @Override
+                public void run() {
+                    renderer.release();
+                    thread.quit();
+                }
+            });
+            renderHandler = null;
+            renderThread = null;
+        }
+    }
+
+    /**
+     * Runs on the render thread if it is running, otherwise it is dropped. Meant for
+     * drawing and gestures, which only matter while the view is shown.
+     */
+    private void onRenderThread(Runnable runnable) {
+        Handler handler = renderHandler;
+        if (handler != null)
+            handler.post(runnable);
+    }
+
+    /**
+     * Runs on the render thread, as soon as it starts if it isn't running.
+     */
+    private void changeRenderer(Runnable change) {
+        synchronized (threadLock) {
+            if (renderHandler != null) {
+                renderHandler.post(change);
+            } else {
+                pendingChanges.add(change);
+            }
+        }
+    }
+
+    private void requestRender() {
+        if (renderPosted.compareAndSet(false, true))
+            onRenderThread(renderRunnable);
+    }
+
+    @Override
+    public void resetView(final LandSize landSize) {
+        synchronized (threadLock) {
+            // a new land replaces the old one with its weirs, no need to keep them around
+            if (renderHandler == null)
+                pendingChanges.clear();
+            changeRenderer(new Runnable() {
+                @Override
+                public void run() {
+                    renderer.resetLand(landSize);
+                    requestRender();
+                }
+            });
+        }
+    }
+
+    @Override
+    public void setWeirs(final List<Position> positions) {
+        changeRenderer(new Runnable() {
+            @Override
+            public void run() {
+                renderer.setWeirs(positions);
+                requestRender();
+            }
+        });
+    }
+
+    @Override
+    public void setStatsVisible(final boolean visible) {
+        statsVisible = visible;
+        onRenderThread(new Runnable() {
+            @Override
+            public void run() {
+                renderer.setStatsVisible(visible);
+                requestRender();
+            }
+        });
+    }
+
+    @Override
+    public FrameStats getFrameStats() {
+        return renderer.getFrameStats();
+    }
+
+    @Override
+    public void setWorld(WorldSnapshot snapshot) {
+        world.set(snapshot);
+        requestRender();
+    }
+
+    /**
+     * A surface keeps nothing between frames, so every frame is drawn whole.
+     */
+    private void renderFrame() {
+        synchronized (surfaceLock) {
+            if (!surfaceReady)
+                return;
+            SurfaceHolder holder = getHolder();
+            Canvas canvas = holder.lockCanvas();
+            if (canvas == null)
+                return;
+            try {
+                canvas.drawColor(Color.WHITE);
+                renderer.draw(canvas);
+            } finally {
+                holder.unlockCanvasAndPost(canvas);
+            }
+        }
+        renderer.clearDirty();
+    }
+
+    @Override
+    public void surfaceCreated(SurfaceHolder holder) {
+        synchronized (surfaceLock) {
+            surfaceReady = true;
+        }
+        startRenderThread();
+    }
+
+    @Override
+    public void surfaceChanged(SurfaceHolder holder, int format, final int width, final int height) {
+        final int horizontalPadding = getPaddingLeft() + getPaddingRight();
+        final int verticalPadding = getPaddingTop() + getPaddingBottom();
+        onRenderThread(new Runnable() {
+            @Override
+            public void run() {
+                renderer.setSize(width, height, horizontalPadding, verticalPadding);
+                requestRender();
+            }
+        });
+    }
+
+    @Override
+    public void surfaceDestroyed(SurfaceHolder holder) {
+        synchronized (surfaceLock) {
+            surfaceReady = false;
+        }
+        stopRenderThread();
+    }
+
+    @Override
+    public boolean onTouchEvent(MotionEvent event) {
+        return gestures.onTouchEvent(event) || super.onTouchEvent(event);
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ *     This is the source code of rover project.
+ *     Copyright (C)   Ali Nasrabadi  2018-2018
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package com.nasrabadiam.rover;
+
+/**
+ * The part of the land the view shows. The land is laid out once at a fixed cell size, the
+ * viewport scales it by {@link #getZoom()} and moves it by the pan offsets, in pixels.
+ * Zooming out stops once the whole land fits the view.
+ */
+class Viewport {
+
+    static final float MAX_ZOOM = 8f;
+
+    private int viewWidth;
+    private int viewHeight;
+    private float contentWidth;
+    private float contentHeight;
+
+    private float minZoom = 1f;
+    private float zoom = 1f;
+    private float panX;
+    private float panY;
+
+    /**
+     * Fits the land in the view again if the sizes changed, otherwise keeps the camera.
+     */
+    void setSize(int viewWidth, int viewHeight, float contentWidth, float contentHeight) {
+        if (viewWidth == this.viewWidth && viewHeight == this.viewHeight
+                && contentWidth == this.contentWidth && contentHeight == this.contentHeight)
+            return;
+        this.viewWidth = viewWidth;
+        this.viewHeight = viewHeight;
+        this.contentWidth = contentWidth;
+        this.contentHeight = contentHeight;
+        minZoom = 1f;
+        if (contentWidth > 0 && contentHeight > 0)
+            minZoom = Math.min(1f, Math.min(viewWidth / contentWidth, viewHeight / contentHeight));
+        fit();
+    }
+
+    void fit() {
+        zoom = minZoom;
+        panX = 0;
+        panY = 0;
+    }
+
+    /**
+     * Scales around the focus point, keeping what is under it in place.
+     *
+     * @return whether the camera moved
+     */
+    boolean scaleBy(float factor, float focusX, float focusY) {
+        float newZoom = Math.max(minZoom, Math.min(MAX_ZOOM, zoom * factor));
+        if (newZoom == zoom)
+            return false;
+        float worldX = toWorldX(focusX);
+        float worldY = toWorldY(focusY);
+        zoom = newZoom;
+        panX = worldX * zoom - focusX;
+        panY = worldY * zoom - focusY;
+        clampPan();
+        return true;
+    }
+
+    /**
+     * @return whether the camera moved
+     */
+    boolean panBy(float dx, float dy) {
+        float oldX = panX;
+        float oldY = panY;
+        panX += dx;
+        panY += dy;
+        clampPan();
+        return panX != oldX || panY != oldY;
+    }
+
+    private void clampPan() {
+        panX = Math.max(0, Math.min(panX, contentWidth * zoom - viewWidth));
+        panY = Math.max(0, Math.min(panY, contentHeight * zoom - viewHeight));
+    }
+
+    float getZoom() {
+        return zoom;
+    }
+
+    float getPanX() {
+        return panX;
+    }
+
+    float getPanY() {
+        return panY;
+    }
+
+    float toWorldX(float screenX) {
+        return (screenX + panX) / zoom;
+    }
+
+    float toWorldY(float screenY) {
+        return (screenY + panY) / zoom;
+    }
+
+    float toScreenX(float worldX) {
+        return worldX * zoom - panX;
+    }
+
+    float toScreenY(float worldY) {
+        return worldY * zoom - panY;
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ *     This is the source code of rover project.
+ *     Copyright (C)   Ali Nasrabadi  2018-2018
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package com.nasrabadiam.rover.ui;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.view.Choreographer;
+
+import com.nasrabadiam.rover.engine.TickScheduler;
+
+/**
+ * Ticks on the main thread in step with the display, a fixed number of ticks every frame.
+ */
+public class FrameTickScheduler implements TickScheduler {
+
+    private final int ticksPerFrame;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private volatile Tick tick;
+
+    private final Choreographer.FrameCallback frameCallback = new Choreographer.FrameCallback() {
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            Tick current = tick;
+            for (int index = 0; index < ticksPerFrame && current != null; index++) {
+                if (!current.onTick()) {
+                    if (tick == current)
+                        tick = null;
+                    return;
+                }
+                current = tick;
+            }
+            if (current != null)
+                Choreographer.getInstance().postFrameCallback(this);
+        }
+    };
+
+    public FrameTickScheduler(int ticksPerFrame) {
+        this.ticksPerFrame = Math.max(1, ticksPerFrame);
+    }
+
+    @Override
+    public void start(Tick tick) {
+        this.tick = tick;
+        mainHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                Choreographer.getInstance().removeFrameCallback(frameCallback);
+                if (FrameTickScheduler.this.tick != null)
+                    Choreographer.getInstance().postFrameCallback(frameCallback);
+            }
+        });
+    }
+
+    @Override
+    public void stop() {
+        tick = null;
+        mainHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                Choreographer.getInstance().removeFrameCallback(frameCallback);
+            }
+        });
+    }
+}
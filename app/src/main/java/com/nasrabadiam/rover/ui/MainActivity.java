@@ -19,20 +19,22 @@
 package com.nasrabadiam.rover.ui;
 
 import android.content.DialogInterface;
+import android.content.SharedPreferences;
 import android.os.Bundle;
-import android.util.Pair;
+import android.util.Log;
 import android.view.Menu;
 import android.view.MenuInflater;
 import android.view.MenuItem;
 import android.view.View;
 import android.widget.ImageView;
 import android.widget.ProgressBar;
+import android.widget.SeekBar;
 
-import com.nasrabadiam.rover.MarsView;
-import com.nasrabadiam.rover.Path;
+import com.nasrabadiam.rover.LandSize;
+import com.nasrabadiam.rover.MarsDisplay;
 import com.nasrabadiam.rover.Position;
 import com.nasrabadiam.rover.R;
-import com.nasrabadiam.rover.Rover;
+import com.nasrabadiam.rover.engine.WorldSnapshot;
 
 import java.util.List;
 
@@ -41,18 +43,36 @@ import androidx.appcompat.app.AppCompatActivity;
 
 public class MainActivity extends AppCompatActivity implements MainContract.View {
 
-    private MarsView marsView;
+    /**
+     * Picks {@link com.nasrabadiam.rover.MarsSurfaceView}, drawing on its own thread, over
+     * {@link com.nasrabadiam.rover.MarsView}, drawing on the UI thread.
+     */
+    private static final String PREF_RENDER_THREAD = "render_thread";
+    private static final String TAG_FRAME_STATS = "FrameStats";
+
+    private View marsView;
+    private MarsDisplay marsDisplay;
+    private boolean renderThread;
+    private boolean statsVisible;
     private ProgressBar progressBar;
     private ImageView reload;
+    private SeekBar replay;
     private MainContract.Presenter presenter;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.main_activity);
-        marsView = findViewById(R.id.mars_view);
+        renderThread = getPreferences(MODE_PRIVATE).getBoolean(PREF_RENDER_THREAD, false);
+        View viewBackend = findViewById(R.id.mars_view);
+        View surfaceBackend = findViewById(R.id.mars_surface_view);
+        marsView = renderThread ? surfaceBackend : viewBackend;
+        marsDisplay = (MarsDisplay) marsView;
+        viewBackend.setVisibility(renderThread ? View.GONE : View.VISIBLE);
+        surfaceBackend.setVisibility(renderThread ? View.VISIBLE : View.GONE);
         progressBar = findViewById(R.id.progress_bar);
         reload = findViewById(R.id.reload);
+        replay = findViewById(R.id.replay);
         reload.setOnClickListener(new View.OnClickListener() {
             @Override
             public void onClick(View v) {
@@ -60,6 +80,22 @@ public class MainActivity extends AppCompatActivity implements MainContract.View
             }
         });
 
+        replay.setOnSeekBarChangeListener(new SeekBar.OnSeekBarChangeListener() {
+            @Override
+            public void onProgressChanged(SeekBar seekBar, int progress, boolean fromUser) {
+                if (fromUser && presenter != null)
+                    presenter.seekTo(progress);
+            }
+
+            @Override
+            public void onStartTrackingTouch(SeekBar seekBar) {
+            }
+
+            @Override
+            public void onStopTrackingTouch(SeekBar seekBar) {
+            }
+        });
+
         presenter = MainPresenter.getPresenter();
         presenter.setView(this);
         presenter.getNewRover();
@@ -92,16 +128,6 @@ public class MainActivity extends AppCompatActivity implements MainContract.View
         });
     }
 
-    @Override
-    public void showRover(final Rover rover, final Position position) {
-        runOnUiThread(new Runnable() {
-            @Override
-            public void run() {
-                marsView.showRover(rover, position);
-            }
-        });
-    }
-
     @Override
     public void hideRover() {
         runOnUiThread(new Runnable() {
@@ -133,23 +159,13 @@ public class MainActivity extends AppCompatActivity implements MainContract.View
     }
 
     @Override
-    public void showWeirs(final List<Position> weirs) {
-        runOnUiThread(new Runnable() {
-            @Override
-            public void run() {
-                marsView.setWeirs(weirs);
-            }
-        });
+    public void showWeirs(List<Position> weirs) {
+        marsDisplay.setWeirs(weirs);
     }
 
     @Override
-    public void resetLand() {
-        runOnUiThread(new Runnable() {
-            @Override
-            public void run() {
-                marsView.resetView();
-            }
-        });
+    public void resetLand(LandSize landSize) {
+        marsDisplay.resetView(landSize);
     }
 
     @Override
@@ -172,8 +188,8 @@ public class MainActivity extends AppCompatActivity implements MainContract.View
     }
 
     @Override
-    public void showPath(List<Pair<Path, Position>> paths) {
-        marsView.setPaths(paths);
+    public void showWorld(WorldSnapshot snapshot) {
+        marsDisplay.setWorld(snapshot);
     }
 
     @Override
@@ -195,6 +211,47 @@ public class MainActivity extends AppCompatActivity implements MainContract.View
         });
     }
 
+    @Override
+    public void showSafeCommand(final String command) {
+        runOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                AlertDialog.Builder dialog = new AlertDialog.Builder(MainActivity.this);
+                dialog.setMessage(getString(R.string.safe_command) + "\n" + command);
+                dialog.setNeutralButton(getString(R.string.ok),
+                        new DialogInterface.OnClickListener() {
+                            @Override
+                            public void onClick(DialogInterface dialog, int which) {
+                                dialog.cancel();
+                            }
+                        });
+                dialog.show();
+            }
+        });
+    }
+
+    @Override
+    public void showReplay(final int length) {
+        runOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                replay.setMax(length);
+                replay.setProgress(length);
+                replay.setVisibility(View.VISIBLE);
+            }
+        });
+    }
+
+    @Override
+    public void hideReplay() {
+        runOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                replay.setVisibility(View.GONE);
+            }
+        });
+    }
+
     @Override
     public void showLoadingError(final String message) {
         runOnUiThread(new Runnable() {
@@ -229,16 +286,69 @@ public class MainActivity extends AppCompatActivity implements MainContract.View
     public boolean onCreateOptionsMenu(Menu menu) {
         MenuInflater inflater = getMenuInflater();
         inflater.inflate(R.menu.main, menu);
+        menu.findItem(R.id.render_thread).setChecked(renderThread);
+        menu.findItem(R.id.frame_stats).setChecked(statsVisible);
         return true;
     }
 
     @Override
     public boolean onOptionsItemSelected(MenuItem item) {
-        if (item.getItemId() == R.id.reload) {
-            presenter.getNewRover();
-            return true;
-        } else {
-            return super.onOptionsItemSelected(item);
+        switch (item.getItemId()) {
+            case R.id.reload:
+                presenter.getNewRover();
+                return true;
+            case R.id.pause:
+                presenter.pause();
+                return true;
+            case R.id.resume:
+                presenter.resume();
+                return true;
+            case R.id.step_once:
+                presenter.stepOnce();
+                return true;
+            case R.id.real_time:
+                presenter.setPace(MainContract.Pace.REAL_TIME);
+                return true;
+            case R.id.frame_synced:
+                presenter.setPace(MainContract.Pace.FRAME_SYNCED);
+                return true;
+            case R.id.fast_forward:
+                presenter.setPace(MainContract.Pace.FAST_FORWARD);
+                return true;
+            case R.id.render_thread:
+                SharedPreferences.Editor editor = getPreferences(MODE_PRIVATE).edit();
+                editor.putBoolean(PREF_RENDER_THREAD, !renderThread).apply();
+                recreate();
+                return true;
+            case R.id.frame_stats:
+                statsVisible = !statsVisible;
+                item.setChecked(statsVisible);
+                marsDisplay.setStatsVisible(statsVisible);
+                return true;
+            case R.id.dump_frame_stats:
+                dumpFrameStats();
+                return true;
+            default:
+                return super.onOptionsItemSelected(item);
         }
     }
+
+    /**
+     * Writes the frame stats to the log, where they can be collected from any device, and
+     * shows them.
+     */
+    private void dumpFrameStats() {
+        String dump = marsDisplay.getFrameStats().dump();
+        Log.i(TAG_FRAME_STATS, dump);
+        AlertDialog.Builder dialog = new AlertDialog.Builder(MainActivity.this);
+        dialog.setMessage(dump);
+        dialog.setNeutralButton(getString(R.string.ok),
+                new DialogInterface.OnClickListener() {
+                    @Override
+                    public void onClick(DialogInterface dialog, int which) {
+                        dialog.cancel();
+                    }
+                });
+        dialog.show();
+    }
 }
@@ -18,21 +18,39 @@
 
 package com.nasrabadiam.rover.ui;
 
-import android.util.Pair;
-
-import com.nasrabadiam.rover.Path;
+import com.nasrabadiam.rover.LandSize;
 import com.nasrabadiam.rover.Position;
-import com.nasrabadiam.rover.Rover;
+import com.nasrabadiam.rover.engine.WorldSnapshot;
 
 import java.util.List;
 
 public class MainContract {
+
+    /**
+     * How fast a mission is played.
+     */
+    enum Pace {
+        REAL_TIME,
+        FRAME_SYNCED,
+        FAST_FORWARD
+    }
+
     interface Presenter {
         void setView(View view);
 
         void detachView();
 
         void getNewRover();
+
+        void seekTo(int step);
+
+        void pause();
+
+        void resume();
+
+        void stepOnce();
+
+        void setPace(Pace pace);
     }
 
     interface View {
@@ -40,8 +58,6 @@ public class MainContract {
 
         void hideLand();
 
-        void showRover(Rover rover, Position position);
-
         void hideRover();
 
         void showLoading();
@@ -54,12 +70,21 @@ public class MainContract {
 
         void showWeirs(List<Position> weirs);
 
-        void resetLand();
+        void resetLand(LandSize landSize);
 
         void showRoverCrashWithWeirs(Position lastRoverPosition);
 
-        void showPath(List<Pair<Path, Position>> paths);
+        /**
+         * May be called on any thread, {@code null} clears the rover and its path.
+         */
+        void showWorld(WorldSnapshot snapshot);
 
         void showRoverOutOfLandError(Position nextRoverPosition);
+
+        void showSafeCommand(String command);
+
+        void showReplay(int length);
+
+        void hideReplay();
     }
 }
@@ -18,33 +18,76 @@
 
 package com.nasrabadiam.rover.ui;
 
-
-import android.util.Pair;
-
 import com.nasrabadiam.rover.Callback;
-import com.nasrabadiam.rover.DIRECTION;
+import com.nasrabadiam.rover.LandSize;
 import com.nasrabadiam.rover.Path;
 import com.nasrabadiam.rover.Position;
 import com.nasrabadiam.rover.Rover;
+import com.nasrabadiam.rover.engine.CancellationToken;
+import com.nasrabadiam.rover.engine.FastForwardTickScheduler;
+import com.nasrabadiam.rover.engine.InvalidCommandException;
+import com.nasrabadiam.rover.engine.MissionListener;
+import com.nasrabadiam.rover.engine.MissionReplay;
+import com.nasrabadiam.rover.engine.MissionResult;
+import com.nasrabadiam.rover.engine.PathPlanner;
+import com.nasrabadiam.rover.engine.RateTickScheduler;
+import com.nasrabadiam.rover.engine.RoverEngine;
+import com.nasrabadiam.rover.engine.SegmentLog;
+import com.nasrabadiam.rover.engine.Simulation;
+import com.nasrabadiam.rover.engine.SimulationDriver;
+import com.nasrabadiam.rover.engine.TickScheduler;
+import com.nasrabadiam.rover.engine.WorldPublisher;
+import com.nasrabadiam.rover.engine.WorldSnapshot;
 import com.nasrabadiam.rover.model.RemoteDataServiceProvider;
 import com.nasrabadiam.rover.model.RoverModel;
 import com.nasrabadiam.rover.model.RoverModelImpl;
 import com.nasrabadiam.rover.model.RoverResponseModel;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
 
 public class MainPresenter implements MainContract.Presenter {
 
+    /**
+     * Memory the path of a mission may take, after that it is downsampled so the view still
+     * draws all of it, with every other cell left out each time the cap is hit.
+     */
+    private static final long PATH_HISTORY_BYTES = 8 * 1024 * 1024;
+    private static final double REAL_TIME_STEPS_PER_SECOND = 1;
+    private static final int FRAME_SYNCED_STEPS_PER_FRAME = 1;
+
     private MainContract.View view = null;
     private RoverModel model;
-    private ExecutorService executorService = Executors.newCachedThreadPool();
-    private Rover lastRover;
-    private Position lastRoverPosition;
-    private DIRECTION lastCurrentPosDirection = DIRECTION.TOP;
-    private List<Pair<Path, Position>> paths = new ArrayList<>();
+    private RoverEngine engine = new RoverEngine();
+    private PathPlanner pathPlanner = new PathPlanner();
+    /**
+     * The one worker of the presenter, it starts missions, runs the ticks of the real time
+     * and fast forward paces and does the work after a mission ends. It lives as long as the
+     * presenter.
+     */
+    private final ScheduledExecutorService missionExecutor = Executors.newSingleThreadScheduledExecutor();
+    /**
+     * Plans safe commands, a search on a big land can take a while and must not hold up the
+     * ticks and missions behind it.
+     */
+    private final ExecutorService planExecutor = Executors.newSingleThreadExecutor();
+    private MainContract.Pace pace = MainContract.Pace.REAL_TIME;
+    private SimulationDriver driver;
+    /**
+     * Cancelled when a new rover is requested, anything started for the old one checks it
+     * before it touches the view.
+     */
+    private CancellationToken token = new CancellationToken();
+
+    /**
+     * The latest snapshot of the mission, or of the replay frame being looked at.
+     */
+    private volatile WorldSnapshot world;
+    private volatile RoverResponseModel mission;
+    private volatile MissionReplay replay;
 
     public static MainPresenter getPresenter() {
         return new MainPresenter(new RoverModelImpl(new RemoteDataServiceProvider()));
@@ -52,22 +95,179 @@ public class MainPresenter implements MainContract.Presenter {
 
     private MainPresenter(RoverModel roverModel) {
         this.model = roverModel;
-        lastRover = new Rover(DIRECTION.TOP);
     }
 
     @Override
     public void setView(MainContract.View view) {
         this.view = view;
+        showWorld(world);
     }
 
     @Override
     public void detachView() {
         view = null;
-        executorService.shutdownNow();
+        renewToken();
+        missionExecutor.shutdownNow();
+        planExecutor.shutdownNow();
+    }
+
+    @Override
+    public synchronized void pause() {
+        if (driver != null)
+            driver.pause();
+    }
+
+    @Override
+    public synchronized void resume() {
+        if (driver != null)
+            driver.resume();
+    }
+
+    @Override
+    public synchronized void stepOnce() {
+        if (driver != null)
+            driver.stepOnce();
+    }
+
+    /**
+     * Takes effect on the running mission too, it carries on at the new pace from where it
+     * is, paused if it was paused. Once the mission has finished it only applies to the next
+     * one.
+     */
+    @Override
+    public synchronized void setPace(MainContract.Pace pace) {
+        this.pace = pace;
+        if (driver == null || driver.getSimulation().isFinished())
+            return;
+        boolean paused = driver.isPaused();
+        driver.stop();
+        drive(driver.getSimulation(), paused, token);
+    }
+
+    private TickScheduler createScheduler() {
+        switch (pace) {
+            case FRAME_SYNCED:
+                return new FrameTickScheduler(FRAME_SYNCED_STEPS_PER_FRAME);
+            case FAST_FORWARD:
+                return new FastForwardTickScheduler(missionExecutor);
+            default:
+                return new RateTickScheduler(missionExecutor, REAL_TIME_STEPS_PER_SECOND);
+        }
+    }
+
+    /**
+     * Does nothing if the token was cancelled meanwhile, so a superseded mission never
+     * starts ticking.
+     */
+    private synchronized void drive(Simulation simulation, boolean paused, CancellationToken token) {
+        if (token.isCancelled())
+            return;
+        driver = new SimulationDriver(simulation, createScheduler(), createOnFinishedListener(token), token);
+        if (paused)
+            driver.pause();
+        driver.start();
+    }
+
+    /**
+     * Cancels everything started for the current rover and stops its mission.
+     */
+    private synchronized CancellationToken renewToken() {
+        token.cancel();
+        token = new CancellationToken();
+        if (driver != null) {
+            driver.stop();
+            driver = null;
+        }
+        return token;
+    }
+
+    /**
+     * Nothing is left to pause or re-pace once the mission is over.
+     */
+    private synchronized void forgetFinishedDriver() {
+        if (driver != null && driver.getSimulation().isFinished()) {
+            driver.stop();
+            driver = null;
+        }
+    }
+
+    private void execute(Runnable task) {
+        try {
+            missionExecutor.execute(task);
+        } catch (RejectedExecutionException e) {
+            // the view is gone and the executor with it
+        }
+    }
+
+    /**
+     * The rover and its path go to the view only as snapshots, the view draws whichever is
+     * the newest when it gets to draw.
+     */
+    private MissionListener createMissionListener(final CancellationToken token) {
+        final WorldPublisher publisher = new WorldPublisher(new SegmentLog(PATH_HISTORY_BYTES, SegmentLog.OverflowPolicy.DOWNSAMPLE, null),
+                new WorldPublisher.OnPublishListener() {
+                    @Override
+                    public void onPublished(WorldSnapshot snapshot) {
+                        if (token.isCancelled())
+                            return;
+                        world = snapshot;
+                        showWorld(snapshot);
+                    }
+                });
+        return new MissionListener() {
+            @Override
+            public void onRoverChanged(Rover rover, Position position) {
+                publisher.onRoverChanged(rover, position);
+            }
+
+            @Override
+            public void onPathAdded(Path path, Position position) {
+                publisher.onPathAdded(path, position);
+            }
+
+            @Override
+            public void onCrash(int step, Position position) {
+                publisher.onCrash(step, position);
+                if (!token.isCancelled())
+                    showRoverCrashWithWeirs(position);
+            }
+
+            @Override
+            public void onOutOfLand(int step, Position nextPosition) {
+                publisher.onOutOfLand(step, nextPosition);
+                if (!token.isCancelled())
+                    showRoverOutOfLandError(nextPosition);
+            }
+        };
+    }
+
+    /**
+     * Called on the thread of the last tick, which may be the main thread, so the follow up
+     * work goes back to the executor.
+     */
+    private SimulationDriver.OnFinishedListener createOnFinishedListener(final CancellationToken token) {
+        return new SimulationDriver.OnFinishedListener() {
+            @Override
+            public void onFinished(final MissionResult result) {
+                final RoverResponseModel roverResponseModel = mission;
+                execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (token.isCancelled())
+                            return;
+                        forgetFinishedDriver();
+                        if (result.getStatus() == MissionResult.Status.CRASHED)
+                            suggestSafeCommand(roverResponseModel, token);
+                        recordReplay(roverResponseModel, token);
+                    }
+                });
+            }
+        };
     }
 
     @Override
     public void getNewRover() {
+        final CancellationToken token = renewToken();
         resetWorld();
         hideLoadingError();
         hideRover();
@@ -77,24 +277,23 @@ public class MainPresenter implements MainContract.Presenter {
 
             @Override
             public void onSuccess(final RoverResponseModel response) {
-                lastRoverPosition = response.startPoint;
-
+                if (token.isCancelled())
+                    return;
                 hideLoading();
                 showLand();
-                resetLand();
-
-                //set Rover Start Point
-                setRoverStartPoint(response.startPoint);
+                resetLand(LandSize.of(response));
 
                 //set weirs
                 setWeirs(response.weirs);
 
                 //run command
-                runCommand(response);
+                runCommand(response, token);
             }
 
             @Override
             public void onError(Throwable throwable) {
+                if (token.isCancelled())
+                    return;
                 hideLand();
                 hideLoading();
                 showLoadingError(throwable);
@@ -102,9 +301,9 @@ public class MainPresenter implements MainContract.Presenter {
         });
     }
 
-    private void resetLand() {
+    private void resetLand(LandSize landSize) {
         if (view != null)
-            view.resetLand();
+            view.resetLand(landSize);
     }
 
     private void showLand() {
@@ -143,20 +342,16 @@ public class MainPresenter implements MainContract.Presenter {
     }
 
     private void resetWorld() {
-        lastCurrentPosDirection = DIRECTION.TOP;
-        lastRover = new Rover(DIRECTION.TOP);
-        lastRoverPosition = null;
-        paths.clear();
+        mission = null;
+        replay = null;
+        hideReplay();
+        world = null;
+        showWorld(null);
     }
 
-    private void setRoverStartPoint(Position position) {
-        Rover initRover = new Rover(DIRECTION.TOP);
-        showRover(position, initRover);
-    }
-
-    private void showRover(Position position, Rover initRover) {
+    private void showWorld(WorldSnapshot snapshot) {
         if (view != null)
-            view.showRover(initRover, position);
+            view.showWorld(snapshot);
     }
 
     private void setWeirs(List<Position> weirs) {
@@ -164,96 +359,87 @@ public class MainPresenter implements MainContract.Presenter {
             view.showWeirs(weirs);
     }
 
-    private void runCommand(final RoverResponseModel roverResponseModel) {
-        executorService = Executors.newCachedThreadPool();
-        executorService.execute(new Runnable() {
+    private void runCommand(final RoverResponseModel roverResponseModel, final CancellationToken token) {
+        execute(new Runnable() {
             @Override
             public void run() {
-                String command = roverResponseModel.command;
-
-                for (int i = 0; i < command.length(); i++) {
-                    try {
-                        Thread.sleep(1000);
-                    } catch (InterruptedException e) {
-                        e.printStackTrace();
-                    }
-
-                    char currentCommand = command.charAt(i);
+                if (token.isCancelled())
+                    return;
+                Simulation simulation;
+                try {
+                    simulation = engine.start(roverResponseModel, createMissionListener(token));
+                } catch (InvalidCommandException e) {
+                    showLoadingError(e);
+                    return;
+                }
+                mission = roverResponseModel;
+                drive(simulation, false, token);
+            }
+        });
+    }
 
-                    for (int index = 0; index < roverResponseModel.weirs.size(); index++) {
-                        if (roverResponseModel.weirs.get(index).equals(lastRoverPosition)) {
-                            showRoverCrashWithWeirs();
-                            return;
-                        }
-                    }
+    /**
+     * Runs the finished mission once more to record it, so it can be scrubbed with
+     * {@link #seekTo(int)} without simulating it again.
+     */
+    private void recordReplay(RoverResponseModel roverResponseModel, CancellationToken token) {
+        MissionReplay recorded = MissionReplay.record(engine, roverResponseModel);
+        if (token.shouldStop())
+            return;
+        replay = recorded;
+        if (view != null)
+            view.showReplay(replay.length());
+    }
 
-                    switch (currentCommand) {
-                        case 'M':
-                            Position nextRoverPosition;
-                            switch (lastRover.getDirection()) {
-                                case BOTTOM:
-                                    nextRoverPosition = new Position(lastRoverPosition.getX(),
-                                            lastRoverPosition.getY() - 1);
-                                    break;
-                                case RIGHT:
-                                    nextRoverPosition = new Position(lastRoverPosition.getX() + 1,
-                                            lastRoverPosition.getY());
-                                    break;
-                                case LEFT:
-                                    nextRoverPosition = new Position(lastRoverPosition.getX() - 1,
-                                            lastRoverPosition.getY());
-                                    break;
-                                case TOP:
-                                    nextRoverPosition = new Position(lastRoverPosition.getX(),
-                                            lastRoverPosition.getY() + 1);
-                                    break;
-                                default:
-                                    nextRoverPosition = new Position(lastRoverPosition.getX(),
-                                            lastRoverPosition.getY());
-                                    break;
-                            }
-
-                            paths.add(new Pair<>(new Path(lastCurrentPosDirection, lastRover.getDirection()), lastRoverPosition));
-                            showPath();
-                            lastCurrentPosDirection = lastRover.getDirection();
-
-
-                            if (nextRoverPosition.getX() < 0 || nextRoverPosition.getX() >= 10 ||
-                                    nextRoverPosition.getY() < 0 || nextRoverPosition.getY() >= 20) {
-                                showRoverOutOfLandError(nextRoverPosition);
-                                return;
-                            }
-                            showRover(nextRoverPosition, lastRover);
-                            lastRoverPosition = nextRoverPosition;
-
-                            break;
-                        case 'R':
-                            lastRover.turnRight();
-                            showRover(lastRoverPosition, lastRover);
-                            break;
-                        case 'L':
-                            lastRover.turnLeft();
-                            showRover(lastRoverPosition, lastRover);
-                            break;
-                    }
-                }
+    @Override
+    public void seekTo(final int step) {
+        final MissionReplay replay = this.replay;
+        final CancellationToken token = currentToken();
+        if (replay == null)
+            return;
+        execute(new Runnable() {
+            @Override
+            public void run() {
+                if (token.isCancelled())
+                    return;
+                world = replay.snapshotAt(Math.max(0, Math.min(step, replay.length())));
+                showWorld(world);
             }
         });
     }
 
-    private void showRoverOutOfLandError(Position nextRoverPosition) {
+    private synchronized CancellationToken currentToken() {
+        return token;
+    }
+
+    private void hideReplay() {
         if (view != null)
-            view.showRoverOutOfLandError(nextRoverPosition);
+            view.hideReplay();
     }
 
-    private void showPath() {
+    private void suggestSafeCommand(final RoverResponseModel roverResponseModel, final CancellationToken token) {
+        try {
+            planExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    String command = pathPlanner.planAround(engine, roverResponseModel, token);
+                    if (command != null && !token.isCancelled() && view != null)
+                        view.showSafeCommand(command);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // the view is gone and the executor with it
+        }
+    }
+
+    private void showRoverOutOfLandError(Position nextRoverPosition) {
         if (view != null)
-            view.showPath(paths);
+            view.showRoverOutOfLandError(nextRoverPosition);
     }
 
-    private void showRoverCrashWithWeirs() {
+    private void showRoverCrashWithWeirs(Position position) {
         if (view != null)
-            view.showRoverCrashWithWeirs(lastRoverPosition);
+            view.showRoverCrashWithWeirs(position);
     }
 
 }
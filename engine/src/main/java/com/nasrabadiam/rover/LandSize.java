@@ -0,0 +1,68 @@
+/*
+ *     This is the source code of rover project.
+ *     Copyright (C)   Ali Nasrabadi  2018-2018
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package com.nasrabadiam.rover;
+
+import com.google.gson.annotations.SerializedName;
+import com.nasrabadiam.rover.model.RoverResponseModel;
+
+import androidx.annotation.NonNull;
+
+public class LandSize {
+
+    public static final LandSize DEFAULT = new LandSize(10, 20);
+
+    public LandSize(int width, int height) {
+        this.width = width;
+        this.height = height;
+    }
+
+    @SerializedName("width")
+    private int width;
+    @SerializedName("height")
+    private int height;
+
+    /**
+     * The land size sent with the mission, or {@link #DEFAULT} when it has none.
+     */
+    public static LandSize of(RoverResponseModel mission) {
+        LandSize landSize = mission.landSize;
+        if (landSize == null || landSize.width <= 0 || landSize.height <= 0)
+            return DEFAULT;
+        return landSize;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public boolean contains(int x, int y) {
+        return x >= 0 && x < width && y >= 0 && y < height;
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return "{width=" + width + ",height=" + height + "}";
+    }
+}
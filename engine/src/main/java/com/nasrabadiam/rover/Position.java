@@ -51,6 +51,11 @@ public class Position {
         return false;
     }
 
+    @Override
+    public int hashCode() {
+        return 31 * x + y;
+    }
+
     @NonNull
     @Override
     public String toString() {
@@ -18,9 +18,25 @@
 
 package com.nasrabadiam.rover;
 
-public class Cell {
-    public int id;
-    public float startX;
-    public float startY;
-    public Object insideCell;
+import com.nasrabadiam.rover.engine.Headings;
+
+public class Rover {
+
+    private DIRECTION direction;
+
+    public Rover(DIRECTION direction) {
+        this.direction = direction;
+    }
+
+    public DIRECTION getDirection() {
+        return direction;
+    }
+
+    public void turnLeft() {
+        direction = Headings.toDirection(Headings.TURN_LEFT[Headings.of(direction)]);
+    }
+
+    public void turnRight() {
+        direction = Headings.toDirection(Headings.TURN_RIGHT[Headings.of(direction)]);
+    }
 }
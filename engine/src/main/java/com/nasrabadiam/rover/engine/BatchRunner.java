@@ -0,0 +1,138 @@
+/*
+ *     This is the source code of rover project.
+ *     Copyright (C)   Ali Nasrabadi  2018-2018
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package com.nasrabadiam.rover.engine;
+
+import com.nasrabadiam.rover.model.RoverResponseModel;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Runs many missions in parallel on a {@link ForkJoinPool}. The list of missions is split
+ * in halves until a slice is small enough to run on one thread.
+ */
+public class BatchRunner {
+
+    /**
+     * Missions a single task runs before it is worth splitting any further.
+     */
+    static final int SLICE_SIZE = 64;
+
+    private final RoverEngine engine;
+    private final ForkJoinPool pool;
+
+    public BatchRunner() {
+        this(new RoverEngine(), new ForkJoinPool());
+    }
+
+    public BatchRunner(RoverEngine engine, ForkJoinPool pool) {
+        this.engine = engine;
+        this.pool = pool;
+    }
+
+    public Result run(Collection<RoverResponseModel> missions) {
+        RoverResponseModel[] input = missions.toArray(new RoverResponseModel[missions.size()]);
+        MissionResult[] output = new MissionResult[input.length];
+
+        long start = System.nanoTime();
+        BatchStats stats = pool.invoke(new SliceTask(input, output, 0, input.length));
+        stats.setElapsedNanos(System.nanoTime() - start);
+
+        return new Result(Arrays.asList(output), stats);
+    }
+
+    /**
+     * Stops the pool's threads, the runner can't be used afterwards.
+     */
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    public static class Result {
+        private final List<MissionResult> results;
+        private final BatchStats stats;
+
+        Result(List<MissionResult> results, BatchStats stats) {
+            this.results = results;
+            this.stats = stats;
+        }
+
+        /**
+         * One result per mission, in the order the missions were given.
+         */
+        public List<MissionResult> getResults() {
+            return results;
+        }
+
+        public BatchStats getStats() {
+            return stats;
+        }
+    }
+
+    private class SliceTask extends RecursiveTask<BatchStats> {
+        private static final long serialVersionUID = 1L;
+
+        private final RoverResponseModel[] input;
+        private final MissionResult[] output;
+        private final int from;
+        private final int to;
+
+        SliceTask(RoverResponseModel[] input, MissionResult[] output, int from, int to) {
+            this.input = input;
+            this.output = output;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected BatchStats compute() {
+            if (to - from <= SLICE_SIZE) {
+                BatchStats stats = new BatchStats();
+                for (int index = from; index < to; index++) {
+                    output[index] = runOne(input[index]);
+                    stats.add(output[index]);
+                }
+                return stats;
+            }
+
+            int middle = (from + to) >>> 1;
+            SliceTask left = new SliceTask(input, output, from, middle);
+            SliceTask right = new SliceTask(input, output, middle, to);
+            left.fork();
+            BatchStats stats = right.compute();
+            stats.merge(left.join());
+            return stats;
+        }
+
+        /**
+         * A broken mission fails on its own instead of taking the whole batch down.
+         */
+        private MissionResult runOne(RoverResponseModel mission) {
+            try {
+                return engine.run(mission);
+            } catch (RuntimeException e) {
+                return MissionResult.failed(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ *     This is the source code of rover project.
+ *     Copyright (C)   Ali Nasrabadi  2018-2018
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package com.nasrabadiam.rover.engine;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Totals over a batch of missions. Each fork/join leaf fills its own instance and they
+ * are merged on the way back up.
+ */
+public class BatchStats {
+
+    private int missionCount;
+    private int completedCount;
+    private int crashedCount;
+    private int outOfLandCount;
+    private int failedCount;
+    private long totalSteps;
+    private long elapsedNanos;
+
+    void add(MissionResult result) {
+        missionCount++;
+        totalSteps += result.getStepsExecuted();
+        switch (result.getStatus()) {
+            case COMPLETED:
+                completedCount++;
+                break;
+            case CRASHED:
+                crashedCount++;
+                break;
+            case OUT_OF_LAND:
+                outOfLandCount++;
+                break;
+            case FAILED:
+                failedCount++;
+                break;
+        }
+    }
+
+    void merge(BatchStats other) {
+        missionCount += other.missionCount;
+        completedCount += other.completedCount;
+        crashedCount += other.crashedCount;
+        outOfLandCount += other.outOfLandCount;
+        failedCount += other.failedCount;
+        totalSteps += other.totalSteps;
+    }
+
+    void setElapsedNanos(long elapsedNanos) {
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public int getMissionCount() {
+        return missionCount;
+    }
+
+    public int getCompletedCount() {
+        return completedCount;
+    }
+
+    public int getCrashedCount() {
+        return crashedCount;
+    }
+
+    public int getOutOfLandCount() {
+        return outOfLandCount;
+    }
+
+    /**
+     * Missions that threw instead of running, see {@link MissionResult#getError()}.
+     */
+    public int getFailedCount() {
+        return failedCount;
+    }
+
+    public long getTotalSteps() {
+        return totalSteps;
+    }
+
+    /**
+     * Wall clock time of the whole batch.
+     */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public double getMissionsPerSecond() {
+        return elapsedNanos == 0 ? 0 : missionCount * 1e9 / elapsedNanos;
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return "missions=" + missionCount +
+                "\ncompleted=" + completedCount +
+                "\ncrashed=" + crashedCount +
+                "\noutOfLand=" + outOfLandCount +
+                "\nfailed=" + failedCount +
+                "\ntotalSteps=" + totalSteps +
+                "\nmissionsPerSecond=" + getMissionsPerSecond();
+    }
+}
@@ -0,0 +1,211 @@
+/*
+ *     This is the source code of rover project.
+ *     Copyright (C)   Ali Nasrabadi  2018-2018
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package com.nasrabadiam.rover.engine;
+
+import java.util.Arrays;
+
+/**
+ * Sparse grid of what lies on each cell, kept as primitive arrays: a kind byte and a
+ * direction byte per cell, chunk by chunk. Nothing is stored per cell besides those two
+ * bytes, coordinates come from the chunk origin and the index.
+ * <p>
+ * A path cell packs the {@link Headings heading} it enters with in the low two bits of its
+ * directions and the one it leaves with in the next two, a rover cell holds its heading.
+ * The kind byte also keeps whether the path ever went through the cell, which outlives the
+ * rover standing on it.
+ */
+public class CellGrid {
+
+    public static final int EMPTY = 0;
+    public static final int PATH = 1;
+    public static final int ROVER = 2;
+
+    public static final int CHUNK_SHIFT = ChunkedGrid.CHUNK_SHIFT;
+    public static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+    private static final int MISSING = -1;
+    private static final int KIND_MASK = 3;
+    private static final int VISITED = 4;
+
+    public interface Visitor {
+        void visit(int x, int y, int kind, int directions);
+    }
+
+    private final LongIntMap chunkIndex = new LongIntMap(16, MISSING);
+    private byte[][] kinds = new byte[16][];
+    private byte[][] directions = new byte[16][];
+    private int[] originX = new int[16];
+    private int[] originY = new int[16];
+    private int chunkCount;
+    private int size;
+
+    public static int packPath(int from, int to) {
+        return from | (to << 2);
+    }
+
+    public static int pathFrom(int directions) {
+        return directions & 3;
+    }
+
+    public static int pathTo(int directions) {
+        return (directions >> 2) & 3;
+    }
+
+    public void setPath(int x, int y, int from, int to) {
+        set(x, y, PATH, packPath(from, to));
+    }
+
+    public void setRover(int x, int y, int heading) {
+        set(x, y, ROVER, heading);
+    }
+
+    public void clearCell(int x, int y) {
+        set(x, y, EMPTY, 0);
+    }
+
+    public int kind(int x, int y) {
+        int chunk = chunkIndex.get(chunkKey(x, y));
+        return chunk == MISSING ? EMPTY : kinds[chunk][indexInChunk(x, y)] & KIND_MASK;
+    }
+
+    /**
+     * Marks the cell as one the path went through.
+     *
+     * @return {@code true} the first time for the cell since the last {@link #clear()}.
+     */
+    public boolean markVisited(int x, int y) {
+        long key = chunkKey(x, y);
+        int chunk = chunkIndex.get(key);
+        if (chunk == MISSING)
+            chunk = addChunk(key, x >> CHUNK_SHIFT << CHUNK_SHIFT, y >> CHUNK_SHIFT << CHUNK_SHIFT);
+        int index = indexInChunk(x, y);
+        if ((kinds[chunk][index] & VISITED) != 0)
+            return false;
+        kinds[chunk][index] |= VISITED;
+        return true;
+    }
+
+    public boolean isVisited(int x, int y) {
+        int chunk = chunkIndex.get(chunkKey(x, y));
+        return chunk != MISSING && (kinds[chunk][indexInChunk(x, y)] & VISITED) != 0;
+    }
+
+    public int directions(int x, int y) {
+        int chunk = chunkIndex.get(chunkKey(x, y));
+        return chunk == MISSING ? 0 : directions[chunk][indexInChunk(x, y)];
+    }
+
+    /**
+     * Chunks stay once made until {@link #clear()}, a path only ever grows between resets.
+     */
+    private void set(int x, int y, int kind, int cellDirections) {
+        long key = chunkKey(x, y);
+        int chunk = chunkIndex.get(key);
+        if (chunk == MISSING) {
+            if (kind == EMPTY)
+                return;
+            chunk = addChunk(key, x >> CHUNK_SHIFT << CHUNK_SHIFT, y >> CHUNK_SHIFT << CHUNK_SHIFT);
+        }
+        int index = indexInChunk(x, y);
+        int old = kinds[chunk][index];
+        int oldKind = old & KIND_MASK;
+        if (oldKind == EMPTY && kind != EMPTY) {
+            size++;
+        } else if (oldKind != EMPTY && kind == EMPTY) {
+            size--;
+        }
+        kinds[chunk][index] = (byte) (kind | (old & VISITED));
+        directions[chunk][index] = (byte) cellDirections;
+    }
+
+    private int addChunk(long key, int x, int y) {
+        if (chunkCount == kinds.length) {
+            kinds = Arrays.copyOf(kinds, chunkCount * 2);
+            directions = Arrays.copyOf(directions, chunkCount * 2);
+            originX = Arrays.copyOf(originX, chunkCount * 2);
+            originY = Arrays.copyOf(originY, chunkCount * 2);
+        }
+        int chunk = chunkCount++;
+        kinds[chunk] = new byte[CHUNK_SIZE * CHUNK_SIZE];
+        directions[chunk] = new byte[CHUNK_SIZE * CHUNK_SIZE];
+        originX[chunk] = x;
+        originY[chunk] = y;
+        chunkIndex.put(key, chunk);
+        return chunk;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int chunkCount() {
+        return chunkCount;
+    }
+
+    public void clear() {
+        chunkIndex.clear();
+        Arrays.fill(kinds, 0, chunkCount, null);
+        Arrays.fill(directions, 0, chunkCount, null);
+        chunkCount = 0;
+        size = 0;
+    }
+
+    /**
+     * Visits every cell that isn't empty, without allocating.
+     */
+    public void forEach(Visitor visitor) {
+        forEachIn(Integer.MIN_VALUE, Integer.MIN_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE, visitor);
+    }
+
+    /**
+     * Visits the cells that aren't empty inside the inclusive range, chunks outside of it are
+     * skipped whole.
+     */
+    public void forEachIn(int minX, int minY, int maxX, int maxY, Visitor visitor) {
+        for (int chunk = 0; chunk < chunkCount; chunk++) {
+            int chunkX = originX[chunk];
+            int chunkY = originY[chunk];
+            if (chunkX > maxX || chunkX + CHUNK_MASK < minX || chunkY > maxY || chunkY + CHUNK_MASK < minY)
+                continue;
+            int fromX = Math.max(minX, chunkX) - chunkX;
+            int toX = Math.min(maxX, chunkX + CHUNK_MASK) - chunkX;
+            int fromY = Math.max(minY, chunkY) - chunkY;
+            int toY = Math.min(maxY, chunkY + CHUNK_MASK) - chunkY;
+            byte[] chunkKinds = kinds[chunk];
+            byte[] chunkDirections = directions[chunk];
+            for (int y = fromY; y <= toY; y++) {
+                int row = y << CHUNK_SHIFT;
+                for (int x = fromX; x <= toX; x++) {
+                    int kind = chunkKinds[row | x] & KIND_MASK;
+                    if (kind != EMPTY)
+                        visitor.visit(chunkX + x, chunkY + y, kind, chunkDirections[row | x]);
+                }
+            }
+        }
+    }
+
+    private static long chunkKey(int x, int y) {
+        return OccupancyIndex.pack(x >> CHUNK_SHIFT, y >> CHUNK_SHIFT);
+    }
+
+    private static int indexInChunk(int x, int y) {
+        return ((y & CHUNK_MASK) << CHUNK_SHIFT) | (x & CHUNK_MASK);
+    }
+}
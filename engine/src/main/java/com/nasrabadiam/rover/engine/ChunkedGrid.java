@@ -0,0 +1,160 @@
+/*
+ *     This is the source code of rover project.
+ *     Copyright (C)   Ali Nasrabadi  2018-2018
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package com.nasrabadiam.rover.engine;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sparse grid split into square chunks of {@link #CHUNK_SIZE} cells. Only chunks that hold
+ * at least one value take memory, so a huge land with a few weirs and a path stays small.
+ */
+public class ChunkedGrid<T> {
+
+    public static final int CHUNK_SHIFT = 6;
+    public static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    public interface Visitor<T> {
+        void visit(int x, int y, T value);
+    }
+
+    private final Map<Long, Chunk> chunks = new HashMap<>();
+    /**
+     * The same chunks in a list, so visiting them doesn't create an iterator.
+     */
+    private final List<Chunk> chunkList = new ArrayList<>();
+    private int size;
+
+    public T get(int x, int y) {
+        Chunk chunk = chunks.get(chunkKey(x, y));
+        if (chunk == null)
+            return null;
+        return chunk.get(indexInChunk(x, y));
+    }
+
+    /**
+     * Stores the value on the cell, a {@code null} value clears it.
+     */
+    public void set(int x, int y, T value) {
+        Long key = chunkKey(x, y);
+        Chunk chunk = chunks.get(key);
+        if (chunk == null) {
+            if (value == null)
+                return;
+            chunk = new Chunk(x >> CHUNK_SHIFT << CHUNK_SHIFT, y >> CHUNK_SHIFT << CHUNK_SHIFT);
+            chunks.put(key, chunk);
+            chunkList.add(chunk);
+        }
+
+        int index = indexInChunk(x, y);
+        boolean wasEmpty = chunk.values[index] == null;
+        chunk.values[index] = value;
+        if (wasEmpty && value != null) {
+            chunk.count++;
+            size++;
+        } else if (!wasEmpty && value == null) {
+            size--;
+            if (--chunk.count == 0) {
+                chunks.remove(key);
+                chunkList.remove(chunk);
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int chunkCount() {
+        return chunks.size();
+    }
+
+    public void clear() {
+        chunks.clear();
+        chunkList.clear();
+        size = 0;
+    }
+
+    /**
+     * Visits every cell holding a value, chunk by chunk, without allocating.
+     */
+    public void forEach(Visitor<? super T> visitor) {
+        for (int chunkIndex = 0; chunkIndex < chunkList.size(); chunkIndex++) {
+            Chunk chunk = chunkList.get(chunkIndex);
+            for (int index = 0; index < chunk.values.length; index++) {
+                T value = chunk.get(index);
+                if (value != null)
+                    visitor.visit(chunk.originX + (index & CHUNK_MASK), chunk.originY + (index >> CHUNK_SHIFT), value);
+            }
+        }
+    }
+
+    /**
+     * Visits the cells holding a value inside the inclusive range. Chunks outside of it are
+     * skipped whole, so the cost follows the range and not the rest of the grid.
+     */
+    public void forEachIn(int minX, int minY, int maxX, int maxY, Visitor<? super T> visitor) {
+        for (int chunkIndex = 0; chunkIndex < chunkList.size(); chunkIndex++) {
+            Chunk chunk = chunkList.get(chunkIndex);
+            if (chunk.originX > maxX || chunk.originX + CHUNK_MASK < minX
+                    || chunk.originY > maxY || chunk.originY + CHUNK_MASK < minY)
+                continue;
+            int fromX = Math.max(minX, chunk.originX) - chunk.originX;
+            int toX = Math.min(maxX, chunk.originX + CHUNK_MASK) - chunk.originX;
+            int fromY = Math.max(minY, chunk.originY) - chunk.originY;
+            int toY = Math.min(maxY, chunk.originY + CHUNK_MASK) - chunk.originY;
+            for (int y = fromY; y <= toY; y++) {
+                for (int x = fromX; x <= toX; x++) {
+                    T value = chunk.get((y << CHUNK_SHIFT) | x);
+                    if (value != null)
+                        visitor.visit(chunk.originX + x, chunk.originY + y, value);
+                }
+            }
+        }
+    }
+
+    private static long chunkKey(int x, int y) {
+        return OccupancyIndex.pack(x >> CHUNK_SHIFT, y >> CHUNK_SHIFT);
+    }
+
+    private static int indexInChunk(int x, int y) {
+        return ((y & CHUNK_MASK) << CHUNK_SHIFT) | (x & CHUNK_MASK);
+    }
+
+    private class Chunk {
+        final Object[] values = new Object[CHUNK_SIZE * CHUNK_SIZE];
+        final int originX;
+        final int originY;
+        int count;
+
+        Chunk(int originX, int originY) {
+            this.originX = originX;
+            this.originY = originY;
+        }
+
+        @SuppressWarnings("unchecked")
+        T get(int index) {
+            return (T) values[index];
+        }
+    }
+}
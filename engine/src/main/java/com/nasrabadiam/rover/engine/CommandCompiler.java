@@ -0,0 +1,146 @@
+/*
+ *     This is the source code of rover project.
+ *     Copyright (C)   Ali Nasrabadi  2018-2018
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package com.nasrabadiam.rover.engine;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Compiles a command string into a {@link CommandProgram}. A run of 'M' becomes a single
+ * move op and a run of turns is folded into its net rotation, so "RRR" becomes one left
+ * turn and "RL" disappears. A command that repeats a short pattern also gets the programs
+ * of one period and of the tail, see {@link CommandProgram#period()}. Compiled programs are
+ * kept in a small LRU cache since the same commands come back again and again.
+ */
+public class CommandCompiler {
+
+    public static final int DEFAULT_CACHE_SIZE = 256;
+
+    /**
+     * A command has to repeat its pattern at least this many times to be run period by
+     * period.
+     */
+    public static final int MIN_PERIODS = 8;
+
+    private final Map<String, CommandProgram> cache;
+
+    public CommandCompiler() {
+        this(DEFAULT_CACHE_SIZE);
+    }
+
+    public CommandCompiler(final int cacheSize) {
+        cache = Collections.synchronizedMap(new LinkedHashMap<String, CommandProgram>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CommandProgram> eldest) {
+                return size() > cacheSize;
+            }
+        });
+    }
+
+    /**
+     * Returns the cached program for the command, compiling it on a miss.
+     *
+     * @throws InvalidCommandException if the command holds an unknown character.
+     */
+    public CommandProgram get(String command) {
+        CommandProgram program = cache.get(command);
+        if (program == null) {
+            program = compile(command);
+            cache.put(command, program);
+        }
+        return program;
+    }
+
+    public static CommandProgram compile(String command) {
+        CommandProgram program = compileOps(command);
+        int length = command.length();
+        if (length < MIN_PERIODS * 2)
+            return program;
+
+        int period = smallestPeriod(command);
+        if (length / period < MIN_PERIODS)
+            return program;
+        return new CommandProgram(program, period, compileOps(command.substring(0, period)),
+                compileOps(command.substring(0, length % period)));
+    }
+
+    /**
+     * The smallest p such that every command equals the one p places after it, found with
+     * the KMP prefix function.
+     */
+    static int smallestPeriod(String command) {
+        int length = command.length();
+        int[] prefix = new int[length];
+        int matched = 0;
+        for (int index = 1; index < length; index++) {
+            char current = command.charAt(index);
+            while (matched > 0 && current != command.charAt(matched)) {
+                matched = prefix[matched - 1];
+            }
+            if (current == command.charAt(matched))
+                matched++;
+            prefix[index] = matched;
+        }
+        return length - prefix[length - 1];
+    }
+
+    private static CommandProgram compileOps(String command) {
+        int length = command.length();
+        int[] ops = new int[16];
+        int[] steps = new int[16];
+        int size = 0;
+
+        int index = 0;
+        while (index < length) {
+            int start = index;
+            char current = command.charAt(index);
+            int op;
+            if (current == 'M') {
+                while (index < length && command.charAt(index) == 'M') {
+                    index++;
+                }
+                op = CommandProgram.move(index - start);
+            } else if (current == 'R' || current == 'L') {
+                int quarterTurns = 0;
+                while (index < length && (command.charAt(index) == 'R' || command.charAt(index) == 'L')) {
+                    quarterTurns += command.charAt(index) == 'R' ? 1 : 3;
+                    index++;
+                }
+                quarterTurns &= 3;
+                if (quarterTurns == 0)
+                    continue;
+                op = CommandProgram.turn(quarterTurns);
+            } else {
+                throw new InvalidCommandException(index, current);
+            }
+
+            if (size == ops.length) {
+                ops = Arrays.copyOf(ops, size * 2);
+                steps = Arrays.copyOf(steps, size * 2);
+            }
+            ops[size] = op;
+            steps[size] = start;
+            size++;
+        }
+        return new CommandProgram(ops, steps, size, length);
+    }
+}
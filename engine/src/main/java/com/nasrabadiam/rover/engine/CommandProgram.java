@@ -0,0 +1,133 @@
+/*
+ *     This is the source code of rover project.
+ *     Copyright (C)   Ali Nasrabadi  2018-2018
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package com.nasrabadiam.rover.engine;
+
+import java.util.Arrays;
+
+/**
+ * A command compiled by {@link CommandCompiler} into an array of ops. Each op is an int
+ * with its kind in the lowest two bits: {@link #MOVE} with the number of cells in the
+ * remaining bits, or a turn by that many quarter turns to the right. Programs are
+ * immutable and shared between missions running the same command.
+ */
+public class CommandProgram {
+
+    public static final int MOVE = 0;
+
+    private final int[] ops;
+    private final int[] steps;
+    private final int length;
+
+    private final int period;
+    private final CommandProgram periodProgram;
+    private final CommandProgram tailProgram;
+
+    CommandProgram(int[] ops, int[] steps, int size, int length) {
+        this.ops = Arrays.copyOf(ops, size);
+        this.steps = Arrays.copyOf(steps, size);
+        this.length = length;
+        this.period = 0;
+        this.periodProgram = null;
+        this.tailProgram = null;
+    }
+
+    /**
+     * A program whose command is its first period repeated, followed by a tail that is a
+     * shorter prefix of the period.
+     */
+    CommandProgram(CommandProgram program, int period, CommandProgram periodProgram,
+                   CommandProgram tailProgram) {
+        this.ops = program.ops;
+        this.steps = program.steps;
+        this.length = program.length;
+        this.period = period;
+        this.periodProgram = periodProgram;
+        this.tailProgram = tailProgram;
+    }
+
+    static int move(int count) {
+        return count << 2 | MOVE;
+    }
+
+    static int turn(int quarterTurns) {
+        return quarterTurns;
+    }
+
+    public static int kind(int op) {
+        return op & 3;
+    }
+
+    public static int count(int op) {
+        return op >>> 2;
+    }
+
+    public int size() {
+        return ops.length;
+    }
+
+    public int op(int index) {
+        return ops[index];
+    }
+
+    /**
+     * Index in the original command of the first command folded into the op.
+     */
+    public int step(int index) {
+        return steps[index];
+    }
+
+    /**
+     * Length of the original command.
+     */
+    public int length() {
+        return length;
+    }
+
+    /**
+     * Length of the pattern the command repeats, or 0 if it doesn't repeat often enough
+     * to be worth skipping whole periods.
+     */
+    public int period() {
+        return period;
+    }
+
+    /**
+     * The program of a single period, {@code null} if the command isn't periodic.
+     */
+    public CommandProgram periodProgram() {
+        return periodProgram;
+    }
+
+    /**
+     * The program of what follows the last full period, {@code null} if the command isn't
+     * periodic.
+     */
+    public CommandProgram tailProgram() {
+        return tailProgram;
+    }
+
+    /**
+     * Index of the first op that starts at or after the given command index.
+     */
+    public int indexOfStep(int step) {
+        int index = Arrays.binarySearch(steps, step);
+        return index >= 0 ? index : -index - 1;
+    }
+}
@@ -0,0 +1,189 @@
+/*
+ *     This is the source code of rover project.
+ *     Copyright (C)   Ali Nasrabadi  2018-2018
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package com.nasrabadiam.rover.engine;
+
+import com.nasrabadiam.rover.LandSize;
+import com.nasrabadiam.rover.Position;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * What one period of a periodic command does to a rover that starts it with a given
+ * heading, worked out on an empty land: the net displacement and rotation, and the
+ * bounding box of every cell the rover stands on or tries to move to, relative to where the
+ * period starts.
+ */
+final class Cycle {
+
+    final int dx;
+    final int dy;
+    final int quarterTurns;
+    private int minX;
+    private int maxX;
+    private int minY;
+    private int maxY;
+
+    private Cycle(CommandProgram pattern, int heading) {
+        long x = 0;
+        long y = 0;
+        int current = heading;
+        for (int index = 0; index < pattern.size(); index++) {
+            int op = pattern.op(index);
+            if (CommandProgram.kind(op) == CommandProgram.MOVE) {
+                x += (long) Headings.DX[current] * CommandProgram.count(op);
+                y += (long) Headings.DY[current] * CommandProgram.count(op);
+                minX = (int) Math.min(minX, x);
+                maxX = (int) Math.max(maxX, x);
+                minY = (int) Math.min(minY, y);
+                maxY = (int) Math.max(maxY, y);
+            } else {
+                current = Headings.ROTATE[CommandProgram.kind(op)][current];
+            }
+        }
+        dx = (int) x;
+        dy = (int) y;
+        int turns = 0;
+        while (Headings.ROTATE[turns][heading] != current) {
+            turns++;
+        }
+        quarterTurns = turns;
+    }
+
+    static Cycle of(CommandProgram pattern, int heading) {
+        return new Cycle(pattern, heading);
+    }
+
+    /**
+     * Whether the rover just goes back and forth over the same cells, because the period
+     * turns it or doesn't move it at all.
+     */
+    boolean isClosed() {
+        return quarterTurns != 0 || (dx == 0 && dy == 0);
+    }
+
+    /**
+     * Number of periods after which a closed cycle is back to the same position and heading.
+     */
+    int closedLength() {
+        switch (quarterTurns) {
+            case 0:
+                return 1;
+            case 2:
+                return 2;
+            default:
+                return 4;
+        }
+    }
+
+    /**
+     * Last period, counted from the one starting at (x, y), whose bounding box is still
+     * inside the land, or -1 if not even the first one is.
+     */
+    long lastInsideLand(int x, int y, LandSize landSize) {
+        long last = Math.min(lastInside(x + minX, x + maxX, dx, landSize.getWidth()),
+                lastInside(y + minY, y + maxY, dy, landSize.getHeight()));
+        return Math.max(last, -1);
+    }
+
+    private static long lastInside(long low, long high, int delta, int size) {
+        if (low < 0 || high > size - 1)
+            return -1;
+        if (delta > 0)
+            return (size - 1 - high) / delta;
+        if (delta < 0)
+            return low / -delta;
+        return Long.MAX_VALUE;
+    }
+
+    /**
+     * The periods, counted from the one starting at (x, y), whose bounding box holds a weir,
+     * as sorted and merged [first, last] pairs.
+     */
+    long[] weirPeriods(List<Position> weirs, int x, int y, long periods) {
+        long[] intervals = new long[weirs.size() * 2];
+        int count = 0;
+        for (Position weir : weirs) {
+            long first = 0;
+            long last = periods - 1;
+            long[] range = periodsHolding(weir.getX() - (long) x, minX, maxX, dx);
+            first = Math.max(first, range[0]);
+            last = Math.min(last, range[1]);
+            range = periodsHolding(weir.getY() - (long) y, minY, maxY, dy);
+            first = Math.max(first, range[0]);
+            last = Math.min(last, range[1]);
+            if (first <= last) {
+                intervals[count++] = first;
+                intervals[count++] = last;
+            }
+        }
+        return merge(intervals, count / 2);
+    }
+
+    /**
+     * The periods j for which min <= offset - j * delta <= max.
+     */
+    private static long[] periodsHolding(long offset, int min, int max, int delta) {
+        if (delta > 0)
+            return new long[]{ceilDiv(offset - max, delta), floorDiv(offset - min, delta)};
+        if (delta < 0)
+            return new long[]{ceilDiv(min - offset, -delta), floorDiv(max - offset, -delta)};
+        if (offset >= min && offset <= max)
+            return new long[]{Long.MIN_VALUE, Long.MAX_VALUE};
+        return new long[]{1, 0};
+    }
+
+    private static long[] merge(long[] intervals, int count) {
+        long[][] pairs = new long[count][];
+        for (int index = 0; index < count; index++) {
+            pairs[index] = new long[]{intervals[index * 2], intervals[index * 2 + 1]};
+        }
+        Arrays.sort(pairs, new Comparator<long[]>() {
+            @Override
+            public int compare(long[] first, long[] second) {
+                return first[0] < second[0] ? -1 : first[0] == second[0] ? 0 : 1;
+            }
+        });
+
+        long[] merged = new long[count * 2];
+        int size = 0;
+        for (long[] pair : pairs) {
+            if (size > 0 && pair[0] <= merged[size - 1] + 1) {
+                merged[size - 1] = Math.max(merged[size - 1], pair[1]);
+            } else {
+                merged[size++] = pair[0];
+                merged[size++] = pair[1];
+            }
+        }
+        return Arrays.copyOf(merged, size);
+    }
+
+    private static long floorDiv(long value, long divisor) {
+        long quotient = value / divisor;
+        if ((value % divisor != 0) && ((value < 0) != (divisor < 0)))
+            quotient--;
+        return quotient;
+    }
+
+    private static long ceilDiv(long value, long divisor) {
+        return -floorDiv(-value, divisor);
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ *     This is the source code of rover project.
+ *     Copyright (C)   Ali Nasrabadi  2018-2018
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package com.nasrabadiam.rover.engine;
+
+/**
+ * How many marked cells fall in each tile, at every level of a pyramid. A tile at level
+ * {@code n} covers {@code 2^n} by {@code 2^n} cells, so a zoomed out view can show a whole
+ * block from one count instead of visiting its cells. Counts are kept up to date as cells
+ * are added, one lookup per level.
+ */
+public class DensityPyramid {
+
+    private final LongIntMap[] counts;
+
+    /**
+     * @param levels the number of levels above the cells, tiles at the top one cover
+     *               {@code 2^levels} cells on a side
+     */
+    public DensityPyramid(int levels) {
+        counts = new LongIntMap[levels + 1];
+        for (int level = 1; level <= levels; level++) {
+            counts[level] = new LongIntMap(16, 0);
+        }
+    }
+
+    /**
+     * Enough levels for one tile at the top to cover a land of the given size.
+     */
+    public static int levelsFor(int width, int height) {
+        int side = Math.max(2, Math.max(width, height));
+        return 32 - Integer.numberOfLeadingZeros(side - 1);
+    }
+
+    public int levels() {
+        return counts.length - 1;
+    }
+
+    /**
+     * Counts the cell once more in every tile that covers it, callers add a cell only once.
+     */
+    public void add(int x, int y) {
+        for (int level = 1; level < counts.length; level++) {
+            long key = OccupancyIndex.pack(x >> level, y >> level);
+            counts[level].put(key, counts[level].get(key) + 1);
+        }
+    }
+
+    /**
+     * @return the marked cells inside the tile, at most {@code 4^level}
+     */
+    public int count(int level, int tileX, int tileY) {
+        return counts[level].get(OccupancyIndex.pack(tileX, tileY));
+    }
+
+    public void clear() {
+        for (int level = 1; level < counts.length; level++) {
+            counts[level].clear();
+        }
+    }
+}
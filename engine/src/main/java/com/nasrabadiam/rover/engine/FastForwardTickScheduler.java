@@ -0,0 +1,80 @@
+/*
+ *     This is the source code of rover project.
+ *     Copyright (C)   Ali Nasrabadi  2018-2018
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package com.nasrabadiam.rover.engine;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Ticks as fast as the mission can go. Ticks run in batches and every batch is submitted
+ * to the executor again, so other work on it, and a stop, get a turn in between. An
+ * interrupt of the executing thread ends the ticking. Give it a single thread executor so
+ * ticks stay in order.
+ */
+public class FastForwardTickScheduler implements TickScheduler {
+
+    public static final int DEFAULT_BATCH_SIZE = 256;
+
+    private final Executor executor;
+    private final int batchSize;
+    private int generation;
+
+    public FastForwardTickScheduler(Executor executor) {
+        this(executor, DEFAULT_BATCH_SIZE);
+    }
+
+    public FastForwardTickScheduler(Executor executor, int batchSize) {
+        this.executor = executor;
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    @Override
+    public synchronized void start(Tick tick) {
+        executor.execute(new Batch(tick, ++generation));
+    }
+
+    @Override
+    public synchronized void stop() {
+        generation++;
+    }
+
+    private synchronized boolean isCurrent(int batchGeneration) {
+        return generation == batchGeneration;
+    }
+
+    private class Batch implements Runnable {
+        private final Tick tick;
+        private final int generation;
+
+        Batch(Tick tick, int generation) {
+            this.tick = tick;
+            this.generation = generation;
+        }
+
+        @Override
+        public void run() {
+            for (int index = 0; index < batchSize; index++) {
+                if (!isCurrent(generation) || Thread.currentThread().isInterrupted() || !tick.onTick())
+                    return;
+            }
+            if (isCurrent(generation))
+                executor.execute(this);
+        }
+    }
+}
@@ -0,0 +1,205 @@
+/*
+ *     This is the source code of rover project.
+ *     Copyright (C)   Ali Nasrabadi  2018-2018
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package com.nasrabadiam.rover.engine;
+
+import androidx.annotation.NonNull;
+
+import java.util.Arrays;
+
+/**
+ * Counters for how a display keeps up with a mission: draw time per frame, frames dropped,
+ * how long a step takes from the mission thread to the screen and steps shown per second.
+ * Times are bucketed into histograms so recording never allocates. Every method is
+ * synchronized, the display records while the UI reads.
+ */
+public class FrameStats {
+
+    public static final long FRAME_BUDGET_NANOS = 16666667L;
+    /**
+     * A gap longer than this between frames means the display was idle, not late.
+     */
+    private static final long IDLE_GAP_NANOS = 250000000L;
+    private static final long STEP_RATE_WINDOW_NANOS = 1000000000L;
+    private static final long NANOS_PER_MILLI = 1000000L;
+
+    /**
+     * Upper bounds of the histogram buckets in milliseconds, the last bucket holds the rest.
+     */
+    private static final int[] BUCKET_LIMITS_MILLIS = {1, 2, 4, 8, 16, 33, 66, 133};
+
+    private final long[] drawHistogram = new long[BUCKET_LIMITS_MILLIS.length + 1];
+    private final long[] latencyHistogram = new long[BUCKET_LIMITS_MILLIS.length + 1];
+
+    private long frames;
+    private long droppedFrames;
+    private long maxDrawNanos;
+    private long lastFrameStartNanos;
+
+    private long latencyCount;
+    private long latencySumNanos;
+    private long maxLatencyNanos;
+
+    private long windowStartNanos;
+    private int windowStartStep = -1;
+    private double stepsPerSecond;
+
+    /**
+     * Records one drawn frame. While frames come one after another, a gap of more than one
+     * frame budget since the previous one counts the frames missed in between as dropped.
+     */
+    public synchronized void recordFrame(long startNanos, long endNanos) {
+        long drawNanos = endNanos - startNanos;
+        drawHistogram[bucketOf(drawNanos)]++;
+        maxDrawNanos = Math.max(maxDrawNanos, drawNanos);
+        if (frames > 0) {
+            long gap = startNanos - lastFrameStartNanos;
+            if (gap < IDLE_GAP_NANOS && gap > FRAME_BUDGET_NANOS * 3 / 2)
+                droppedFrames += (gap + FRAME_BUDGET_NANOS / 2) / FRAME_BUDGET_NANOS - 1;
+        }
+        lastFrameStartNanos = startNanos;
+        frames++;
+    }
+
+    /**
+     * Records the first frame that shows a snapshot, for the step to pixel latency and the
+     * step rate.
+     */
+    public synchronized void recordSnapshotShown(int step, long publishedNanos, long shownNanos) {
+        long latency = shownNanos - publishedNanos;
+        latencyHistogram[bucketOf(latency)]++;
+        latencyCount++;
+        latencySumNanos += latency;
+        maxLatencyNanos = Math.max(maxLatencyNanos, latency);
+
+        if (windowStartStep < 0 || step < windowStartStep) {
+            windowStartStep = step;
+            windowStartNanos = shownNanos;
+        } else if (shownNanos - windowStartNanos >= STEP_RATE_WINDOW_NANOS) {
+            stepsPerSecond = (step - windowStartStep) * 1e9 / (shownNanos - windowStartNanos);
+            windowStartStep = step;
+            windowStartNanos = shownNanos;
+        }
+    }
+
+    private static int bucketOf(long nanos) {
+        long millis = nanos / NANOS_PER_MILLI;
+        for (int bucket = 0; bucket < BUCKET_LIMITS_MILLIS.length; bucket++) {
+            if (millis < BUCKET_LIMITS_MILLIS[bucket])
+                return bucket;
+        }
+        return BUCKET_LIMITS_MILLIS.length;
+    }
+
+    /**
+     * @return the upper bound of the bucket holding the percentile, the largest time seen if
+     * it falls in the last one.
+     */
+    private static long percentileMillis(long[] histogram, long count, long maxNanos, int percent) {
+        if (count == 0)
+            return 0;
+        long rank = (count * percent + 99) / 100;
+        long seen = 0;
+        for (int bucket = 0; bucket < BUCKET_LIMITS_MILLIS.length; bucket++) {
+            seen += histogram[bucket];
+            if (seen >= rank)
+                return Math.min(BUCKET_LIMITS_MILLIS[bucket], maxNanos / NANOS_PER_MILLI + 1);
+        }
+        return maxNanos / NANOS_PER_MILLI;
+    }
+
+    public synchronized long getFrames() {
+        return frames;
+    }
+
+    public synchronized long getDroppedFrames() {
+        return droppedFrames;
+    }
+
+    public synchronized long getDrawPercentileMillis(int percent) {
+        return percentileMillis(drawHistogram, frames, maxDrawNanos, percent);
+    }
+
+    public synchronized long getMaxDrawMillis() {
+        return maxDrawNanos / NANOS_PER_MILLI;
+    }
+
+    public synchronized long getLatencyPercentileMillis(int percent) {
+        return percentileMillis(latencyHistogram, latencyCount, maxLatencyNanos, percent);
+    }
+
+    public synchronized long getAverageLatencyMillis() {
+        return latencyCount == 0 ? 0 : latencySumNanos / latencyCount / NANOS_PER_MILLI;
+    }
+
+    public synchronized double getStepsPerSecond() {
+        return stepsPerSecond;
+    }
+
+    public synchronized void reset() {
+        Arrays.fill(drawHistogram, 0);
+        Arrays.fill(latencyHistogram, 0);
+        frames = 0;
+        droppedFrames = 0;
+        maxDrawNanos = 0;
+        latencyCount = 0;
+        latencySumNanos = 0;
+        maxLatencyNanos = 0;
+        windowStartStep = -1;
+        stepsPerSecond = 0;
+    }
+
+    /**
+     * Everything recorded so far as text, one value per line, followed by both histograms.
+     */
+    @NonNull
+    public synchronized String dump() {
+        StringBuilder builder = new StringBuilder();
+        builder.append("frames=").append(frames)
+                .append("\ndroppedFrames=").append(droppedFrames)
+                .append("\ndrawP50Millis=").append(getDrawPercentileMillis(50))
+                .append("\ndrawP95Millis=").append(getDrawPercentileMillis(95))
+                .append("\ndrawMaxMillis=").append(getMaxDrawMillis())
+                .append("\nlatencyAverageMillis=").append(getAverageLatencyMillis())
+                .append("\nlatencyP95Millis=").append(getLatencyPercentileMillis(95))
+                .append("\nlatencyMaxMillis=").append(maxLatencyNanos / NANOS_PER_MILLI)
+                .append("\nstepsPerSecond=").append(stepsPerSecond);
+        appendHistogram(builder, "draw", drawHistogram);
+        appendHistogram(builder, "latency", latencyHistogram);
+        return builder.toString();
+    }
+
+    private static void appendHistogram(StringBuilder builder, String name, long[] histogram) {
+        for (int bucket = 0; bucket < histogram.length; bucket++) {
+            builder.append('\n').append(name);
+            if (bucket < BUCKET_LIMITS_MILLIS.length) {
+                builder.append("Under").append(BUCKET_LIMITS_MILLIS[bucket]).append("Millis=");
+            } else {
+                builder.append("Over").append(BUCKET_LIMITS_MILLIS[bucket - 1]).append("Millis=");
+            }
+            builder.append(histogram[bucket]);
+        }
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return dump();
+    }
+}
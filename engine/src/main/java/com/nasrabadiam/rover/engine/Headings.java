@@ -0,0 +1,64 @@
+/*
+ *     This is the source code of rover project.
+ *     Copyright (C)   Ali Nasrabadi  2018-2018
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package com.nasrabadiam.rover.engine;
+
+import com.nasrabadiam.rover.DIRECTION;
+
+/**
+ * Headings as small ints, equal to the {@link DIRECTION} ordinals, with lookup tables for
+ * turning and moving so the step loop doesn't branch on the enum.
+ */
+public final class Headings {
+
+    public static final int LEFT = 0;
+    public static final int RIGHT = 1;
+    public static final int TOP = 2;
+    public static final int BOTTOM = 3;
+
+    public static final int[] TURN_LEFT = {BOTTOM, TOP, LEFT, RIGHT};
+    public static final int[] TURN_RIGHT = {TOP, BOTTOM, RIGHT, LEFT};
+    public static final int[] TURN_BACK = {RIGHT, LEFT, BOTTOM, TOP};
+
+    /**
+     * Heading after a number of quarter turns to the right, indexed [quarterTurns][heading].
+     */
+    public static final int[][] ROTATE = {
+            {LEFT, RIGHT, TOP, BOTTOM},
+            TURN_RIGHT,
+            TURN_BACK,
+            TURN_LEFT
+    };
+
+    public static final int[] DX = {-1, 1, 0, 0};
+    public static final int[] DY = {0, 0, 1, -1};
+
+    private static final DIRECTION[] DIRECTIONS = DIRECTION.values();
+
+    private Headings() {
+    }
+
+    public static int of(DIRECTION direction) {
+        return direction.ordinal();
+    }
+
+    public static DIRECTION toDirection(int heading) {
+        return DIRECTIONS[heading];
+    }
+}
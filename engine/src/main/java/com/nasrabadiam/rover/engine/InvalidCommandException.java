@@ -0,0 +1,45 @@
+/*
+ *     This is the source code of rover project.
+ *     Copyright (C)   Ali Nasrabadi  2018-2018
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package com.nasrabadiam.rover.engine;
+
+/**
+ * Thrown when a command holds anything other than 'M', 'L' and 'R'.
+ */
+public class InvalidCommandException extends IllegalArgumentException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int index;
+    private final char character;
+
+    public InvalidCommandException(int index, char character) {
+        super("invalid command '" + character + "' at " + index);
+        this.index = index;
+        this.character = character;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public char getCharacter() {
+        return character;
+    }
+}
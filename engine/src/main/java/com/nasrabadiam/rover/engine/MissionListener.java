@@ -16,7 +16,22 @@
  *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
  */
 
-package com.nasrabadiam.rover;
+package com.nasrabadiam.rover.engine;
 
-class Weir {
+import com.nasrabadiam.rover.Path;
+import com.nasrabadiam.rover.Position;
+import com.nasrabadiam.rover.Rover;
+
+/**
+ * Receives the events of a {@link Simulation} as it steps through the command.
+ * Every callback runs on the thread that calls {@link Simulation#step()}.
+ */
+public interface MissionListener {
+    void onRoverChanged(Rover rover, Position position);
+
+    void onPathAdded(Path path, Position position);
+
+    void onCrash(int step, Position position);
+
+    void onOutOfLand(int step, Position nextPosition);
 }
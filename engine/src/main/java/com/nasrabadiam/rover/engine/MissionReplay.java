@@ -0,0 +1,222 @@
+/*
+ *     This is the source code of rover project.
+ *     Copyright (C)   Ali Nasrabadi  2018-2018
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package com.nasrabadiam.rover.engine;
+
+import com.nasrabadiam.rover.DIRECTION;
+import com.nasrabadiam.rover.Path;
+import com.nasrabadiam.rover.Position;
+import com.nasrabadiam.rover.Rover;
+import com.nasrabadiam.rover.model.RoverResponseModel;
+
+import java.util.Arrays;
+
+/**
+ * A finished mission that can be looked at after any of its steps. Recording keeps a full
+ * snapshot of the rover every few steps and one byte for every step in between, so seeking
+ * replays at most one snapshot interval instead of the whole mission. The byte holds the
+ * heading after the step, whether the rover moved and whether a path segment was added.
+ */
+public class MissionReplay {
+
+    public static final int DEFAULT_SNAPSHOT_INTERVAL = 1024;
+
+    private static final int MOVED = 1 << 2;
+    private static final int PATH_ADDED = 1 << 3;
+
+    private final int snapshotInterval;
+    private final MissionResult result;
+    private final SegmentLog.View paths;
+    private final byte[] deltas;
+    private final long[] snapshotStates;
+    private final int[] snapshotPathCounts;
+
+    private MissionReplay(int snapshotInterval, MissionResult result, SegmentLog.View paths, byte[] deltas,
+                          long[] snapshotStates, int[] snapshotPathCounts) {
+        this.snapshotInterval = snapshotInterval;
+        this.result = result;
+        this.paths = paths;
+        this.deltas = deltas;
+        this.snapshotStates = snapshotStates;
+        this.snapshotPathCounts = snapshotPathCounts;
+    }
+
+    public static MissionReplay record(RoverEngine engine, RoverResponseModel mission) {
+        return record(engine, mission, DEFAULT_SNAPSHOT_INTERVAL);
+    }
+
+    /**
+     * Runs the mission step by step and records it.
+     *
+     * @throws InvalidCommandException if the command holds an unknown character.
+     */
+    public static MissionReplay record(RoverEngine engine, RoverResponseModel mission, int snapshotInterval) {
+        if (snapshotInterval < 1)
+            throw new IllegalArgumentException("snapshot interval must be positive");
+
+        final SegmentLog paths = new SegmentLog();
+        final int[] pathCount = new int[1];
+        Simulation simulation = engine.start(mission, new MissionListener() {
+            @Override
+            public void onRoverChanged(Rover rover, Position position) {
+            }
+
+            @Override
+            public void onPathAdded(Path path, Position position) {
+                paths.add(path, position);
+                pathCount[0]++;
+            }
+
+            @Override
+            public void onCrash(int step, Position position) {
+            }
+
+            @Override
+            public void onOutOfLand(int step, Position nextPosition) {
+            }
+        });
+
+        byte[] deltas = new byte[256];
+        long[] snapshotStates = new long[16];
+        int[] snapshotPathCounts = new int[16];
+        int snapshots = 0;
+        int steps = 0;
+        long state = simulation.state();
+        while (true) {
+            if (steps % snapshotInterval == 0) {
+                if (snapshots == snapshotStates.length) {
+                    snapshotStates = Arrays.copyOf(snapshotStates, snapshots * 2);
+                    snapshotPathCounts = Arrays.copyOf(snapshotPathCounts, snapshots * 2);
+                }
+                snapshotStates[snapshots] = state;
+                snapshotPathCounts[snapshots] = pathCount[0];
+                snapshots++;
+            }
+            if (simulation.isFinished())
+                break;
+
+            int pathsBefore = pathCount[0];
+            simulation.step();
+            long next = simulation.state();
+            int delta = RoverState.heading(next);
+            if (RoverState.x(next) != RoverState.x(state) || RoverState.y(next) != RoverState.y(state))
+                delta |= MOVED;
+            if (pathCount[0] != pathsBefore)
+                delta |= PATH_ADDED;
+
+            if (steps == deltas.length)
+                deltas = Arrays.copyOf(deltas, steps * 2);
+            deltas[steps++] = (byte) delta;
+            state = next;
+        }
+
+        return new MissionReplay(snapshotInterval, simulation.getResult(), paths.view(), Arrays.copyOf(deltas, steps),
+                Arrays.copyOf(snapshotStates, snapshots), Arrays.copyOf(snapshotPathCounts, snapshots));
+    }
+
+    /**
+     * @return the number of steps the mission ran, the last one is where it ended.
+     */
+    public int length() {
+        return deltas.length;
+    }
+
+    public MissionResult getResult() {
+        return result;
+    }
+
+    /**
+     * All the path segments of the mission, a frame shows the first
+     * {@link Frame#getPathCount()} of them.
+     */
+    public SegmentLog.View getPaths() {
+        return paths;
+    }
+
+    /**
+     * @param step number of steps run, from 0 for the start to {@link #length()}.
+     */
+    public Frame seek(int step) {
+        if (step < 0 || step > deltas.length)
+            throw new IndexOutOfBoundsException("step " + step + ", length " + deltas.length);
+
+        int snapshot = step / snapshotInterval;
+        long state = snapshotStates[snapshot];
+        int pathCount = snapshotPathCounts[snapshot];
+        for (int index = snapshot * snapshotInterval; index < step; index++) {
+            int delta = deltas[index];
+            int heading = delta & 3;
+            int x = RoverState.x(state);
+            int y = RoverState.y(state);
+            if ((delta & MOVED) != 0) {
+                x += Headings.DX[heading];
+                y += Headings.DY[heading];
+            }
+            if ((delta & PATH_ADDED) != 0)
+                pathCount++;
+            state = RoverState.pack(x, y, heading);
+        }
+        return new Frame(step, new Position(RoverState.x(state), RoverState.y(state)),
+                Headings.toDirection(RoverState.heading(state)), pathCount);
+    }
+
+    /**
+     * The frame after a number of steps as a snapshot, its paths are the first
+     * {@link Frame#getPathCount()} of the mission.
+     */
+    public WorldSnapshot snapshotAt(int step) {
+        Frame frame = seek(step);
+        MissionResult.Status status = step == deltas.length && result.getStatus() != MissionResult.Status.COMPLETED
+                ? result.getStatus() : null;
+        return new WorldSnapshot(frame.getPosition(), frame.getDirection(), paths.upTo(frame.getPathCount()), status);
+    }
+
+    /**
+     * The rover and its path after a number of steps.
+     */
+    public static class Frame {
+        private final int step;
+        private final Position position;
+        private final DIRECTION direction;
+        private final int pathCount;
+
+        Frame(int step, Position position, DIRECTION direction, int pathCount) {
+            this.step = step;
+            this.position = position;
+            this.direction = direction;
+            this.pathCount = pathCount;
+        }
+
+        public int getStep() {
+            return step;
+        }
+
+        public Position getPosition() {
+            return position;
+        }
+
+        public DIRECTION getDirection() {
+            return direction;
+        }
+
+        public int getPathCount() {
+            return pathCount;
+        }
+    }
+}
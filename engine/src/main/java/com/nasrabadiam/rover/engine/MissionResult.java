@@ -0,0 +1,131 @@
+/*
+ *     This is the source code of rover project.
+ *     Copyright (C)   Ali Nasrabadi  2018-2018
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package com.nasrabadiam.rover.engine;
+
+import com.nasrabadiam.rover.DIRECTION;
+import com.nasrabadiam.rover.Position;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Final state of a mission once its command is finished, or stopped by a crash or
+ * by leaving the land. A mission that couldn't be run at all, like one with an unknown
+ * command, ends as {@link Status#FAILED}.
+ */
+public class MissionResult {
+
+    public enum Status {
+        COMPLETED, CRASHED, OUT_OF_LAND, FAILED
+    }
+
+    private final Status status;
+    private final Position position;
+    private final DIRECTION direction;
+    private final int stepsExecuted;
+    private final int failureStep;
+    private final Position failurePosition;
+    private final RuntimeException error;
+
+    MissionResult(Status status, Position position, DIRECTION direction, int stepsExecuted,
+                  int failureStep, Position failurePosition) {
+        this(status, position, direction, stepsExecuted, failureStep, failurePosition, null);
+    }
+
+    private MissionResult(Status status, Position position, DIRECTION direction, int stepsExecuted,
+                          int failureStep, Position failurePosition, RuntimeException error) {
+        this.status = status;
+        this.position = position;
+        this.direction = direction;
+        this.stepsExecuted = stepsExecuted;
+        this.failureStep = failureStep;
+        this.failurePosition = failurePosition;
+        this.error = error;
+    }
+
+    /**
+     * Result of a mission that threw before or while it ran.
+     */
+    static MissionResult failed(RuntimeException error) {
+        return new MissionResult(Status.FAILED, null, null, 0, -1, null, error);
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    /**
+     * Last position the rover stood on. For a crash this is the weir it ran into.
+     */
+    public Position getPosition() {
+        return position;
+    }
+
+    public DIRECTION getDirection() {
+        return direction;
+    }
+
+    /**
+     * Number of commands that were run, including the one that stopped the mission.
+     */
+    public int getStepsExecuted() {
+        return stepsExecuted;
+    }
+
+    /**
+     * Index of the command that crashed the rover or drove it out of the land, or -1.
+     */
+    public int getFailureStep() {
+        return failureStep;
+    }
+
+    public int getCrashStep() {
+        return status == Status.CRASHED ? failureStep : -1;
+    }
+
+    public int getOutOfLandStep() {
+        return status == Status.OUT_OF_LAND ? failureStep : -1;
+    }
+
+    /**
+     * The weir the rover crashed into, or the position outside the land it tried to
+     * move to. {@code null} for a completed mission.
+     */
+    public Position getFailurePosition() {
+        return failurePosition;
+    }
+
+    /**
+     * Why a {@link Status#FAILED} mission couldn't be run, {@code null} otherwise.
+     */
+    public RuntimeException getError() {
+        return error;
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return "status=" + status +
+                "\nposition=" + position +
+                "\ndirection=" + direction +
+                "\nstepsExecuted=" + stepsExecuted +
+                "\nfailureStep=" + failureStep +
+                (error == null ? "" : "\nerror=" + error);
+    }
+}
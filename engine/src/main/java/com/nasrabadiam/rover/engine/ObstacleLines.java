@@ -0,0 +1,176 @@
+/*
+ *     This is the source code of rover project.
+ *     Copyright (C)   Ali Nasrabadi  2018-2018
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package com.nasrabadiam.rover.engine;
+
+import com.nasrabadiam.rover.Position;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Weirs sorted per row and per column, so the first weir along a straight line can be
+ * found with a binary search instead of walking the line cell by cell.
+ */
+public class ObstacleLines {
+
+    /**
+     * Returned by {@link #distanceToObstacle} when there is no weir along the heading.
+     */
+    public static final int NONE = Integer.MAX_VALUE;
+
+    private static final int[] EMPTY = new int[0];
+
+    private final Lines rows;
+    private final Lines columns;
+
+    public ObstacleLines(List<Position> weirs) {
+        int count = weirs == null ? 0 : weirs.size();
+        long[] byRow = new long[count];
+        long[] byColumn = new long[count];
+        for (int index = 0; index < count; index++) {
+            Position weir = weirs.get(index);
+            byRow[index] = OccupancyIndex.pack(weir.getY(), weir.getX());
+            byColumn[index] = OccupancyIndex.pack(weir.getX(), weir.getY());
+        }
+        rows = new Lines(byRow);
+        columns = new Lines(byColumn);
+    }
+
+    public boolean isOccupied(int x, int y) {
+        return Arrays.binarySearch(rows.get(y), x) >= 0;
+    }
+
+    /**
+     * Number of moves from (x, y) along the heading until the rover stands on a weir, or
+     * {@link #NONE}.
+     */
+    public int distanceToObstacle(int x, int y, int heading) {
+        switch (heading) {
+            case Headings.RIGHT:
+                return distanceAfter(rows.get(y), x);
+            case Headings.LEFT:
+                return distanceBefore(rows.get(y), x);
+            case Headings.TOP:
+                return distanceAfter(columns.get(x), y);
+            default:
+                return distanceBefore(columns.get(x), y);
+        }
+    }
+
+    /**
+     * Number of moves from (x, y) along the heading until the rover reaches a row, when
+     * moving up or down, or a column, when moving sideways, that holds any weir. 0 if the
+     * current one does, {@link #NONE} if there is none ahead.
+     */
+    public int distanceToWeirLine(int x, int y, int heading) {
+        switch (heading) {
+            case Headings.RIGHT:
+                return distanceAfter(columns.keys, x - 1, x);
+            case Headings.LEFT:
+                return distanceBefore(columns.keys, x + 1, x);
+            case Headings.TOP:
+                return distanceAfter(rows.keys, y - 1, y);
+            default:
+                return distanceBefore(rows.keys, y + 1, y);
+        }
+    }
+
+    private static int distanceAfter(int[] line, int from) {
+        return distanceAfter(line, from, from);
+    }
+
+    /**
+     * Distance from {@code origin} to the first value in the line after {@code from}.
+     */
+    private static int distanceAfter(int[] line, int from, int origin) {
+        int index = insertionPoint(line, from + 1);
+        return index < line.length ? line[index] - origin : NONE;
+    }
+
+    private static int distanceBefore(int[] line, int from) {
+        return distanceBefore(line, from, from);
+    }
+
+    /**
+     * Distance from {@code origin} to the last value in the line before {@code from}.
+     */
+    private static int distanceBefore(int[] line, int from, int origin) {
+        int index = insertionPoint(line, from) - 1;
+        return index >= 0 ? origin - line[index] : NONE;
+    }
+
+    /**
+     * Index of the first value in the line that is not smaller than the given one.
+     */
+    private static int insertionPoint(int[] line, int value) {
+        int index = Arrays.binarySearch(line, value);
+        return index >= 0 ? index : -index - 1;
+    }
+
+    /**
+     * Sorted offsets per line, the lines themselves are kept sorted too so a lookup is a
+     * binary search with no boxing.
+     */
+    private static class Lines {
+        private final int[] keys;
+        private final int[][] offsets;
+
+        /**
+         * Groups packed (line, offset) pairs into a sorted array of offsets per line.
+         */
+        Lines(long[] packed) {
+            Arrays.sort(packed);
+            int[] keys = new int[packed.length];
+            int[][] offsets = new int[packed.length][];
+            int size = 0;
+            int start = 0;
+            while (start < packed.length) {
+                int line = (int) (packed[start] >> 32);
+                int end = start;
+                while (end < packed.length && (int) (packed[end] >> 32) == line) {
+                    end++;
+                }
+
+                int[] lineOffsets = new int[end - start];
+                for (int index = start; index < end; index++) {
+                    lineOffsets[index - start] = (int) packed[index];
+                }
+                Arrays.sort(lineOffsets);
+
+                int count = 0;
+                for (int offset : lineOffsets) {
+                    if (count == 0 || lineOffsets[count - 1] != offset)
+                        lineOffsets[count++] = offset;
+                }
+                keys[size] = line;
+                offsets[size] = count == lineOffsets.length ? lineOffsets : Arrays.copyOf(lineOffsets, count);
+                size++;
+                start = end;
+            }
+            this.keys = Arrays.copyOf(keys, size);
+            this.offsets = Arrays.copyOf(offsets, size);
+        }
+
+        int[] get(int key) {
+            int index = Arrays.binarySearch(keys, key);
+            return index >= 0 ? offsets[index] : EMPTY;
+        }
+    }
+}
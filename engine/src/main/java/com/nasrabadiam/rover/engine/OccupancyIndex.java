@@ -0,0 +1,102 @@
+/*
+ *     This is the source code of rover project.
+ *     Copyright (C)   Ali Nasrabadi  2018-2018
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package com.nasrabadiam.rover.engine;
+
+import com.nasrabadiam.rover.Position;
+
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Answers "is there a weir on this cell" in constant time. It is built once per mission,
+ * as a bit per cell for lands that are small enough and as a hash set of packed
+ * coordinates for bigger ones.
+ */
+public abstract class OccupancyIndex {
+
+    /**
+     * Lands with more cells than this use the hash set, a bit set would be mostly empty.
+     */
+    static final long MAX_BIT_SET_CELLS = 1 << 24;
+
+    public static OccupancyIndex of(List<Position> positions, int width, int height) {
+        if ((long) width * height <= MAX_BIT_SET_CELLS)
+            return new BitSetIndex(positions, width, height);
+        return new HashIndex(positions);
+    }
+
+    /**
+     * Packs a coordinate into a single long, x in the high and y in the low 32 bits.
+     */
+    public static long pack(int x, int y) {
+        return ((long) x << 32) | (y & 0xFFFFFFFFL);
+    }
+
+    public abstract boolean isOccupied(int x, int y);
+
+    public boolean isOccupied(Position position) {
+        return position != null && isOccupied(position.getX(), position.getY());
+    }
+
+    private static class BitSetIndex extends OccupancyIndex {
+        private final BitSet cells;
+        private final int width;
+        private final int height;
+
+        BitSetIndex(List<Position> positions, int width, int height) {
+            this.width = width;
+            this.height = height;
+            this.cells = new BitSet(width * height);
+            if (positions != null) {
+                for (Position position : positions) {
+                    if (isInside(position.getX(), position.getY()))
+                        cells.set(position.getY() * width + position.getX());
+                }
+            }
+        }
+
+        @Override
+        public boolean isOccupied(int x, int y) {
+            return isInside(x, y) && cells.get(y * width + x);
+        }
+
+        private boolean isInside(int x, int y) {
+            return x >= 0 && x < width && y >= 0 && y < height;
+        }
+    }
+
+    private static class HashIndex extends OccupancyIndex {
+        private final LongHashSet cells;
+
+        HashIndex(List<Position> positions) {
+            cells = new LongHashSet(positions == null ? 0 : positions.size());
+            if (positions != null) {
+                for (Position position : positions) {
+                    cells.add(pack(position.getX(), position.getY()));
+                }
+            }
+        }
+
+        @Override
+        public boolean isOccupied(int x, int y) {
+            return cells.contains(pack(x, y));
+        }
+    }
+}
@@ -0,0 +1,445 @@
+/*
+ *     This is the source code of rover project.
+ *     Copyright (C)   Ali Nasrabadi  2018-2018
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package com.nasrabadiam.rover.engine;
+
+import com.nasrabadiam.rover.DIRECTION;
+import com.nasrabadiam.rover.LandSize;
+import com.nasrabadiam.rover.Position;
+import com.nasrabadiam.rover.model.RoverResponseModel;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Plans the shortest command, counting every 'L', 'R' and 'M', that drives the rover from a
+ * start to a target without touching a weir or leaving the land. It runs A* over
+ * (position, heading) states, so turns cost like moves.
+ * <p>
+ * With jump point search, moving forward doesn't add every cell ahead as a state: the
+ * rover jumps straight to the next cell where turning could matter. That is a cell lined
+ * up with the target, the last one before a weir or the edge, or one whose free run to
+ * either side is longer than the run from the cell before or after it, since a turn
+ * anywhere else can be slid along to such a cell without making the command longer. The
+ * free runs come from {@link ObstacleLines} and can only differ from one cell to the next
+ * around a row or column that holds a weir, so the jump only looks at the cells just
+ * before, on and just after each such line and skips the ones between. On big sparse lands
+ * that leaves a fraction of the states plain A* expands, on small crowded ones nearly
+ * every cell is such a cell and the binary searches cost more than they save, so it is
+ * off by default. Both find commands of the same length, the tests check them against a
+ * breadth first search.
+ * <p>
+ * A search gives up after a bounded number of expanded states, and first floods a few
+ * thousand cells around the start and the target so a walled-in target is rejected
+ * without searching the whole land.
+ */
+public class PathPlanner {
+
+    /**
+     * States a search may expand before it gives up, enough for a detour across a few
+     * thousand cells.
+     */
+    public static final int DEFAULT_MAX_EXPANSIONS = 1 << 16;
+
+    /**
+     * Cells flooded from the start and from the target to find out cheaply that one of them
+     * is walled in, before A* would expand every state around it.
+     */
+    private static final int FLOOD_LIMIT = 4096;
+
+    private static final int CANCEL_CHECK_INTERVAL = 1024;
+
+    private static final CancellationToken NEVER_CANCELLED = new CancellationToken();
+
+    private final boolean jumpPointSearch;
+    private final int maxExpansions;
+
+    public PathPlanner() {
+        this(false);
+    }
+
+    public PathPlanner(boolean jumpPointSearch) {
+        this(jumpPointSearch, DEFAULT_MAX_EXPANSIONS);
+    }
+
+    public PathPlanner(boolean jumpPointSearch, int maxExpansions) {
+        this.jumpPointSearch = jumpPointSearch;
+        this.maxExpansions = maxExpansions;
+    }
+
+    /**
+     * Plans a command from the start point of the mission to where its command would take
+     * the rover if there were no weirs on the way.
+     *
+     * @return the command, or {@code null} if that target is outside the land or can't be
+     * reached.
+     */
+    public String planAround(RoverEngine engine, RoverResponseModel mission) {
+        return planAround(engine, mission, null);
+    }
+
+    /**
+     * Same as {@link #planAround(RoverEngine, RoverResponseModel)}, giving up with
+     * {@code null} once the token is cancelled.
+     */
+    public String planAround(RoverEngine engine, RoverResponseModel mission, CancellationToken token) {
+        RoverResponseModel withoutWeirs = new RoverResponseModel();
+        withoutWeirs.startPoint = mission.startPoint;
+        withoutWeirs.command = mission.command;
+        withoutWeirs.landSize = mission.landSize;
+        withoutWeirs.weirs = Collections.emptyList();
+
+        MissionResult intended = engine.run(withoutWeirs);
+        if (intended.getStatus() != MissionResult.Status.COMPLETED)
+            return null;
+        return plan(mission.startPoint, DIRECTION.TOP, intended.getPosition(), mission.weirs,
+                LandSize.of(mission), token);
+    }
+
+    /**
+     * @return the command, or {@code null} if the target can't be reached.
+     */
+    public String plan(Position start, DIRECTION heading, Position target, List<Position> weirs,
+                       LandSize landSize) {
+        return plan(start, heading, target, weirs, landSize, null);
+    }
+
+    /**
+     * @return the command, or {@code null} if the target can't be reached, the search
+     * expanded more states than allowed or the token got cancelled.
+     */
+    public String plan(Position start, DIRECTION heading, Position target, List<Position> weirs,
+                       LandSize landSize, CancellationToken token) {
+        return new Search(start, Headings.of(heading), target, weirs, landSize,
+                token == null ? NEVER_CANCELLED : token).run();
+    }
+
+    /**
+     * One A* search. Nodes live in parallel primitive arrays and the open list is a binary
+     * heap of node indexes, so a search allocates a few arrays rather than an object per
+     * state.
+     */
+    private class Search {
+        private final int targetX;
+        private final int targetY;
+        private final OccupancyIndex weirs;
+        private final ObstacleLines obstacleLines;
+        private final LandSize landSize;
+        private final long startState;
+        private final CancellationToken token;
+
+        private final LongIntMap bestNodes = new LongIntMap(1024, -1);
+        private long[] states = new long[1024];
+        private int[] costs = new int[1024];
+        private int[] estimates = new int[1024];
+        private int[] parents = new int[1024];
+        private int nodeCount;
+
+        private int[] heap = new int[1024];
+        private int heapSize;
+
+        Search(Position start, int heading, Position target, List<Position> weirs, LandSize landSize,
+               CancellationToken token) {
+            this.targetX = target.getX();
+            this.targetY = target.getY();
+            this.weirs = OccupancyIndex.of(weirs, landSize.getWidth(), landSize.getHeight());
+            this.obstacleLines = jumpPointSearch ? new ObstacleLines(weirs) : null;
+            this.landSize = landSize;
+            this.startState = RoverState.pack(start.getX(), start.getY(), heading);
+            this.token = token;
+        }
+
+        String run() {
+            int startX = RoverState.x(startState);
+            int startY = RoverState.y(startState);
+            if (isBlocked(startX, startY) || isBlocked(targetX, targetY))
+                return null;
+            if (startX == targetX && startY == targetY)
+                return "";
+            if (!mayReach(targetX, targetY, startX, startY) || !mayReach(startX, startY, targetX, targetY))
+                return null;
+
+            push(startState, 0, -1);
+            int expansions = 0;
+            while (heapSize > 0) {
+                int node = poll();
+                long state = states[node];
+                if (bestNodes.get(state) != node)
+                    continue;
+                if (++expansions > maxExpansions)
+                    return null;
+                if (expansions % CANCEL_CHECK_INTERVAL == 0 && token.shouldStop())
+                    return null;
+
+                int x = RoverState.x(state);
+                int y = RoverState.y(state);
+                if (x == targetX && y == targetY)
+                    return toCommand(node);
+
+                int heading = RoverState.heading(state);
+                int cost = costs[node];
+                push(RoverState.withHeading(state, Headings.TURN_LEFT[heading]), cost + 1, node);
+                push(RoverState.withHeading(state, Headings.TURN_RIGHT[heading]), cost + 1, node);
+
+                int distance = forward(x, y, heading);
+                if (distance > 0) {
+                    push(RoverState.pack(x + Headings.DX[heading] * distance,
+                            y + Headings.DY[heading] * distance, heading), cost + distance, node);
+                }
+            }
+            return null;
+        }
+
+        private void push(long state, int cost, int parent) {
+            int best = bestNodes.get(state);
+            if (best >= 0 && costs[best] <= cost)
+                return;
+
+            if (nodeCount == states.length) {
+                int capacity = nodeCount * 2;
+                states = Arrays.copyOf(states, capacity);
+                costs = Arrays.copyOf(costs, capacity);
+                estimates = Arrays.copyOf(estimates, capacity);
+                parents = Arrays.copyOf(parents, capacity);
+            }
+            int node = nodeCount++;
+            states[node] = state;
+            costs[node] = cost;
+            estimates[node] = cost + heuristic(state);
+            parents[node] = parent;
+            bestNodes.put(state, node);
+
+            if (heapSize == heap.length)
+                heap = Arrays.copyOf(heap, heapSize * 2);
+            int index = heapSize++;
+            while (index > 0) {
+                int parentIndex = (index - 1) >>> 1;
+                if (!before(node, heap[parentIndex]))
+                    break;
+                heap[index] = heap[parentIndex];
+                index = parentIndex;
+            }
+            heap[index] = node;
+        }
+
+        private int poll() {
+            int first = heap[0];
+            int last = heap[--heapSize];
+            int index = 0;
+            while (true) {
+                int child = index * 2 + 1;
+                if (child >= heapSize)
+                    break;
+                if (child + 1 < heapSize && before(heap[child + 1], heap[child]))
+                    child++;
+                if (!before(heap[child], last))
+                    break;
+                heap[index] = heap[child];
+                index = child;
+            }
+            heap[index] = last;
+            return first;
+        }
+
+        /**
+         * Lower estimate first, and on a tie the node that got further.
+         */
+        private boolean before(int first, int second) {
+            if (estimates[first] != estimates[second])
+                return estimates[first] < estimates[second];
+            return costs[first] > costs[second];
+        }
+
+        /**
+         * Floods up to {@link #FLOOD_LIMIT} cells from (fromX, fromY).
+         *
+         * @return {@code false} only if the flood ran out of cells before reaching (toX, toY),
+         * so the two are walled off from each other.
+         */
+        private boolean mayReach(int fromX, int fromY, int toX, int toY) {
+            LongHashSet visited = new LongHashSet(FLOOD_LIMIT);
+            long[] queue = new long[FLOOD_LIMIT];
+            int head = 0;
+            int tail = 0;
+            long first = OccupancyIndex.pack(fromX, fromY);
+            visited.add(first);
+            queue[tail++] = first;
+            while (head < tail) {
+                long cell = queue[head++];
+                int x = (int) (cell >> 32);
+                int y = (int) cell;
+                for (int heading = 0; heading < 4; heading++) {
+                    int nextX = x + Headings.DX[heading];
+                    int nextY = y + Headings.DY[heading];
+                    if (nextX == toX && nextY == toY)
+                        return true;
+                    long next = OccupancyIndex.pack(nextX, nextY);
+                    if (isBlocked(nextX, nextY) || !visited.add(next))
+                        continue;
+                    if (tail == FLOOD_LIMIT)
+                        return true;
+                    queue[tail++] = next;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Number of cells to move forward before the next state worth expanding, 0 if the
+         * cell ahead is blocked.
+         */
+        private int forward(int x, int y, int heading) {
+            int dx = Headings.DX[heading];
+            int dy = Headings.DY[heading];
+            if (isBlocked(x + dx, y + dy))
+                return 0;
+            if (!jumpPointSearch)
+                return 1;
+
+            int stop = freeCells(x, y, heading);
+            int toTarget = (targetX - x) * dx + (targetY - y) * dy;
+            if (toTarget > 0 && toTarget < stop)
+                stop = toTarget;
+
+            int left = Headings.TURN_LEFT[heading];
+            int right = Headings.TURN_RIGHT[heading];
+            int distance = 1;
+            int currentX = x + dx;
+            int currentY = y + dy;
+            int previousLeft = freeCells(x, y, left);
+            int previousRight = freeCells(x, y, right);
+            int currentLeft = freeCells(currentX, currentY, left);
+            int currentRight = freeCells(currentX, currentY, right);
+            while (distance < stop) {
+                int nextLeft = freeCells(currentX + dx, currentY + dy, left);
+                int nextRight = freeCells(currentX + dx, currentY + dy, right);
+                // a turn here can't be moved a cell back or forward without hitting a weir
+                if (previousLeft < currentLeft || nextLeft < currentLeft
+                        || previousRight < currentRight || nextRight < currentRight)
+                    return distance;
+
+                // the side runs only change next to a line holding a weir, so the cells worth
+                // a look are the one before such a line, the line itself and the one after
+                int gap = obstacleLines.distanceToWeirLine(currentX, currentY, heading);
+                if (gap == ObstacleLines.NONE)
+                    break;
+                int skip = gap == 0 ? 1 : gap - 1;
+                if (skip <= 1) {
+                    previousLeft = currentLeft;
+                    previousRight = currentRight;
+                    currentLeft = nextLeft;
+                    currentRight = nextRight;
+                    currentX += dx;
+                    currentY += dy;
+                    distance++;
+                } else {
+                    currentX += dx * skip;
+                    currentY += dy * skip;
+                    distance += skip;
+                    previousLeft = freeCells(currentX - dx, currentY - dy, left);
+                    previousRight = freeCells(currentX - dx, currentY - dy, right);
+                    currentLeft = freeCells(currentX, currentY, left);
+                    currentRight = freeCells(currentX, currentY, right);
+                }
+            }
+            return stop;
+        }
+
+        /**
+         * Number of cells the rover can move from (x, y) along the heading.
+         */
+        private int freeCells(int x, int y, int heading) {
+            int toEdge;
+            switch (heading) {
+                case Headings.RIGHT:
+                    toEdge = landSize.getWidth() - 1 - x;
+                    break;
+                case Headings.LEFT:
+                    toEdge = x;
+                    break;
+                case Headings.TOP:
+                    toEdge = landSize.getHeight() - 1 - y;
+                    break;
+                default:
+                    toEdge = y;
+                    break;
+            }
+            int toWeir = obstacleLines.distanceToObstacle(x, y, heading);
+            return toWeir == ObstacleLines.NONE ? toEdge : Math.min(toEdge, toWeir - 1);
+        }
+
+        private boolean isBlocked(int x, int y) {
+            return !landSize.contains(x, y) || weirs.isOccupied(x, y);
+        }
+
+        /**
+         * Manhattan distance plus the turns the rover needs at least to face the target.
+         */
+        private int heuristic(long state) {
+            int dx = targetX - RoverState.x(state);
+            int dy = targetY - RoverState.y(state);
+            int heading = RoverState.heading(state);
+            int distance = Math.abs(dx) + Math.abs(dy);
+            if (distance == 0)
+                return 0;
+
+            boolean towardX = dx != 0 && Integer.signum(dx) == Headings.DX[heading];
+            boolean towardY = dy != 0 && Integer.signum(dy) == Headings.DY[heading];
+            boolean awayX = dx != 0 && Integer.signum(dx) == -Headings.DX[heading];
+            boolean awayY = dy != 0 && Integer.signum(dy) == -Headings.DY[heading];
+            int turns;
+            if (dx != 0 && dy != 0) {
+                turns = towardX || towardY ? 1 : 2;
+            } else if (towardX || towardY) {
+                turns = 0;
+            } else {
+                turns = awayX || awayY ? 2 : 1;
+            }
+            return distance + turns;
+        }
+
+        private String toCommand(int node) {
+            List<Long> path = new ArrayList<>();
+            for (int current = node; current >= 0; current = parents[current]) {
+                path.add(states[current]);
+            }
+            Collections.reverse(path);
+
+            StringBuilder command = new StringBuilder(costs[node]);
+            for (int index = 1; index < path.size(); index++) {
+                long from = path.get(index - 1);
+                long to = path.get(index);
+                int fromHeading = RoverState.heading(from);
+                int toHeading = RoverState.heading(to);
+                if (fromHeading != toHeading) {
+                    command.append(Headings.TURN_LEFT[fromHeading] == toHeading ? 'L' : 'R');
+                } else {
+                    int distance = Math.abs(RoverState.x(to) - RoverState.x(from))
+                            + Math.abs(RoverState.y(to) - RoverState.y(from));
+                    for (int move = 0; move < distance; move++) {
+                        command.append('M');
+                    }
+                }
+            }
+            return command.toString();
+        }
+    }
+}
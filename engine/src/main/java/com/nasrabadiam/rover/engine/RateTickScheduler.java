@@ -0,0 +1,89 @@
+/*
+ *     This is the source code of rover project.
+ *     Copyright (C)   Ali Nasrabadi  2018-2018
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package com.nasrabadiam.rover.engine;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ticks in real time at a fixed rate. The executor is only busy while a tick runs, no
+ * thread sleeps between ticks. Give it a single thread executor so ticks stay in order.
+ */
+public class RateTickScheduler implements TickScheduler {
+
+    private final ScheduledExecutorService executor;
+    private final long periodNanos;
+    private Ticking current;
+
+    public RateTickScheduler(ScheduledExecutorService executor, double ticksPerSecond) {
+        if (ticksPerSecond <= 0)
+            throw new IllegalArgumentException("rate must be positive");
+        this.executor = executor;
+        this.periodNanos = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / ticksPerSecond));
+    }
+
+    @Override
+    public synchronized void start(Tick tick) {
+        stop();
+        current = new Ticking(tick);
+        current.future = executor.scheduleAtFixedRate(current, periodNanos, periodNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (current != null) {
+            current.cancel();
+            current = null;
+        }
+    }
+
+    private synchronized void finished(Ticking ticking) {
+        ticking.cancel();
+        if (current == ticking)
+            current = null;
+    }
+
+    private class Ticking implements Runnable {
+        private final Tick tick;
+        private volatile boolean done;
+        private ScheduledFuture<?> future;
+
+        Ticking(Tick tick) {
+            this.tick = tick;
+        }
+
+        @Override
+        public void run() {
+            if (done)
+                return;
+            if (!tick.onTick())
+                finished(this);
+        }
+
+        /**
+         * Called with the scheduler locked, so the future is already set.
+         */
+        void cancel() {
+            done = true;
+            future.cancel(false);
+        }
+    }
+}
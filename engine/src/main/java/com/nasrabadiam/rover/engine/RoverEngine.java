@@ -0,0 +1,82 @@
+/*
+ *     This is the source code of rover project.
+ *     Copyright (C)   Ali Nasrabadi  2018-2018
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package com.nasrabadiam.rover.engine;
+
+import com.nasrabadiam.rover.model.RoverResponseModel;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Runs rover missions without any dependency on the Android UI. A single engine can be
+ * shared between threads, every mission gets its own {@link Simulation}.
+ */
+public class RoverEngine {
+
+    private final CommandCompiler compiler;
+
+    public RoverEngine() {
+        this(new CommandCompiler());
+    }
+
+    public RoverEngine(CommandCompiler compiler) {
+        this.compiler = compiler;
+    }
+
+    /**
+     * Runs the whole command and returns how the mission ended.
+     *
+     * @throws InvalidCommandException if the command holds an unknown character.
+     */
+    public MissionResult run(RoverResponseModel mission) {
+        return run(mission, null);
+    }
+
+    public MissionResult run(RoverResponseModel mission, MissionListener listener) {
+        return start(mission, listener).run();
+    }
+
+    /**
+     * Runs the command read from the stream instead of {@code mission.command}, executing it
+     * as it arrives with memory that doesn't depend on its length. The reader isn't closed.
+     *
+     * @throws InvalidCommandException if the stream holds an unknown character.
+     * @throws IOException             if reading the stream fails.
+     */
+    public MissionResult runStream(RoverResponseModel mission, Reader commands) throws IOException {
+        return runStream(mission, commands, null);
+    }
+
+    public MissionResult runStream(RoverResponseModel mission, Reader commands, MissionListener listener)
+            throws IOException {
+        return Simulation.streaming(mission, listener).run(commands);
+    }
+
+    /**
+     * Prepares the mission without running any command, so the caller can drive it with
+     * {@link Simulation#step()}.
+     *
+     * @throws InvalidCommandException if the command holds an unknown character.
+     */
+    public Simulation start(RoverResponseModel mission, MissionListener listener) {
+        CommandProgram program = compiler.get(mission.command == null ? "" : mission.command);
+        return new Simulation(mission, program, listener);
+    }
+}
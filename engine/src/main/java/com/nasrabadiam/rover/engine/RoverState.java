@@ -0,0 +1,50 @@
+/*
+ *     This is the source code of rover project.
+ *     Copyright (C)   Ali Nasrabadi  2018-2018
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package com.nasrabadiam.rover.engine;
+
+/**
+ * Packs a rover position and heading into a single long: x in the top 31 bits, y in the
+ * next 31 bits and the heading in the lowest two.
+ */
+public final class RoverState {
+
+    private RoverState() {
+    }
+
+    public static long pack(int x, int y, int heading) {
+        return ((long) x << 33) | ((y & 0x7FFFFFFFL) << 2) | heading;
+    }
+
+    public static int x(long state) {
+        return (int) (state >> 33);
+    }
+
+    public static int y(long state) {
+        return (int) (state << 31 >> 33);
+    }
+
+    public static int heading(long state) {
+        return (int) (state & 3);
+    }
+
+    public static long withHeading(long state, int heading) {
+        return (state & ~3L) | heading;
+    }
+}
@@ -0,0 +1,364 @@
+/*
+ *     This is the source code of rover project.
+ *     Copyright (C)   Ali Nasrabadi  2018-2018
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.nasrabadiam.rover.engine;
+
+import com.nasrabadiam.rover.DIRECTION;
+import com.nasrabadiam.rover.Path;
+import com.nasrabadiam.rover.Position;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Append only log of path segments, each packed into a single long, x, y, the heading the
+ * rover came in with and the one it left with, in fixed size chunks that are never written
+ * again once full. A {@link View} taken from it is immutable, so one thread can keep adding
+ * while others read views without any locking, as long as the views are handed over
+ * safely, e.g. through an atomic reference.
+ * <p>
+ * With a memory cap, what happens once it is reached depends on the {@link OverflowPolicy}.
+ * Views taken before always keep what they had.
+ */
+public final class SegmentLog implements Closeable {
+
+    public enum OverflowPolicy {
+        /**
+         * Drops the oldest chunk from later views.
+         */
+        DROP_OLDEST,
+        /**
+         * Keeps every other segment and from then on every second new one, so the whole
+         * mission is still covered, more coarsely each time the cap is hit.
+         */
+        DOWNSAMPLE,
+        /**
+         * Appends the oldest chunk to a file before dropping it, see {@link #forEachSpilled}.
+         */
+        SPILL
+    }
+
+    public interface Visitor {
+        void visit(int x, int y, DIRECTION from, DIRECTION to);
+    }
+
+    static final int BYTES_PER_SEGMENT = 8;
+    static final int CHUNK_BITS = 12;
+    static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+    private static final int MAX_COORDINATE = (1 << 30) - 1;
+
+    private final int maxChunks;
+    private final OverflowPolicy policy;
+    private final File spillFile;
+
+    private long[][] chunks = new long[4][];
+    private int chunkCount;
+    private int chunkBase;
+    private int end;
+
+    private long added;
+    private int stride = 1;
+    /**
+     * Bumped whenever the segments are laid out anew, indexes of views from an earlier
+     * generation don't carry over.
+     */
+    private int generation;
+    private long spilled;
+    private DataOutputStream spillOutput;
+
+    public SegmentLog() {
+        this(Long.MAX_VALUE);
+    }
+
+    public SegmentLog(long maxBytes) {
+        this(maxBytes, OverflowPolicy.DROP_OLDEST, null);
+    }
+
+    /**
+     * @param spillFile where segments go with {@link OverflowPolicy#SPILL}, anything in it
+     *                  is overwritten.
+     */
+    public SegmentLog(long maxBytes, OverflowPolicy policy, File spillFile) {
+        if (policy == OverflowPolicy.SPILL && spillFile == null)
+            throw new IllegalArgumentException("spilling needs a file");
+        long bytesPerChunk = (long) CHUNK_SIZE * BYTES_PER_SEGMENT;
+        this.maxChunks = (int) Math.max(1, Math.min(maxBytes / bytesPerChunk, Integer.MAX_VALUE / 2));
+        this.policy = policy;
+        this.spillFile = spillFile;
+    }
+
+    public void add(Path path, Position position) {
+        add(position.getX(), position.getY(), Headings.of(path.getStartFrom()), Headings.of(path.getEndTo()));
+    }
+
+    /**
+     * @param from heading the rover had when it came into the cell, one of {@link Headings}.
+     * @param to   heading it leaves the cell with.
+     */
+    public void add(int x, int y, int from, int to) {
+        long segment = pack(x, y, from, to);
+        if (added++ % stride != 0)
+            return;
+
+        if ((end & CHUNK_MASK) == 0) {
+            if (chunkCount == maxChunks)
+                makeRoom();
+            // downsampling may leave the last chunk half empty
+            if ((end & CHUNK_MASK) == 0)
+                addChunk();
+        }
+        chunks[chunkCount - 1][end & CHUNK_MASK] = segment;
+        end++;
+    }
+
+    public View view() {
+        return new View(this, generation, chunks, chunkBase, chunkBase * CHUNK_SIZE, end);
+    }
+
+    /**
+     * @return the number of segments ever added, including dropped, skipped and spilled
+     * ones.
+     */
+    public long addedCount() {
+        return added;
+    }
+
+    /**
+     * @return how many added segments each one kept stands for, more than one once
+     * {@link OverflowPolicy#DOWNSAMPLE} has kicked in.
+     */
+    public int stride() {
+        return stride;
+    }
+
+    public long spilledCount() {
+        return spilled;
+    }
+
+    /**
+     * Visits the segments spilled to the file, oldest first. They all come before the ones
+     * in memory. Call it on the thread that adds, or once it is done.
+     */
+    public void forEachSpilled(Visitor visitor) throws IOException {
+        if (spilled == 0)
+            return;
+        spillOutput.flush();
+        DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(spillFile)));
+        try {
+            for (long index = 0; index < spilled; index++) {
+                visit(input.readLong(), visitor);
+            }
+        } catch (EOFException e) {
+            throw new IOException("spill file is shorter than expected", e);
+        } finally {
+            input.close();
+        }
+    }
+
+    @Override
+    public void close() {
+        if (spillOutput == null)
+            return;
+        try {
+            spillOutput.close();
+        } catch (IOException ignored) {
+        }
+        spillOutput = null;
+    }
+
+    private void makeRoom() {
+        switch (policy) {
+            case DROP_OLDEST:
+                dropOldestChunk();
+                break;
+            case DOWNSAMPLE:
+                downsample();
+                break;
+            case SPILL:
+                spill(chunks[0]);
+                dropOldestChunk();
+                break;
+        }
+    }
+
+    private void addChunk() {
+        if (chunkCount == chunks.length)
+            chunks = Arrays.copyOf(chunks, chunkCount * 2);
+        chunks[chunkCount++] = new long[CHUNK_SIZE];
+    }
+
+    private void dropOldestChunk() {
+        // views may still read the array, so it is copied rather than shifted
+        chunks = Arrays.copyOfRange(chunks, 1, chunks.length);
+        chunkCount--;
+        chunkBase++;
+    }
+
+    /**
+     * Lays every other segment out in new chunks, the old ones stay as they are for the
+     * views that hold them.
+     */
+    private void downsample() {
+        long[][] kept = new long[chunks.length][];
+        int keptEnd = 0;
+        for (int index = chunkBase * CHUNK_SIZE; index < end; index += 2) {
+            if ((keptEnd & CHUNK_MASK) == 0)
+                kept[keptEnd >> CHUNK_BITS] = new long[CHUNK_SIZE];
+            kept[keptEnd >> CHUNK_BITS][keptEnd & CHUNK_MASK] = chunks[(index >> CHUNK_BITS) - chunkBase][index & CHUNK_MASK];
+            keptEnd++;
+        }
+        chunks = kept;
+        chunkCount = (keptEnd + CHUNK_MASK) >> CHUNK_BITS;
+        chunkBase = 0;
+        end = keptEnd;
+        stride *= 2;
+        generation++;
+    }
+
+    private void spill(long[] chunk) {
+        try {
+            if (spillOutput == null)
+                spillOutput = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(spillFile)));
+            for (long segment : chunk) {
+                spillOutput.writeLong(segment);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("can't spill path segments to " + spillFile, e);
+        }
+        spilled += chunk.length;
+    }
+
+    private static void visit(long segment, Visitor visitor) {
+        visitor.visit(segmentX(segment), segmentY(segment), segmentFrom(segment), segmentTo(segment));
+    }
+
+    /**
+     * Coordinates get 30 bits each and can't be negative. The simulation never reports a
+     * path off the land, a rover that starts off it ends right away.
+     */
+    static long pack(int x, int y, int from, int to) {
+        if (x < 0 || y < 0 || x > MAX_COORDINATE || y > MAX_COORDINATE)
+            throw new IllegalArgumentException("position out of range: " + x + "," + y);
+        return (long) x << 34 | (long) y << 4 | from << 2 | to;
+    }
+
+    static int segmentX(long segment) {
+        return (int) (segment >>> 34);
+    }
+
+    static int segmentY(long segment) {
+        return (int) (segment >>> 4) & MAX_COORDINATE;
+    }
+
+    static DIRECTION segmentFrom(long segment) {
+        return Headings.toDirection((int) (segment >>> 2) & 3);
+    }
+
+    static DIRECTION segmentTo(long segment) {
+        return Headings.toDirection((int) segment & 3);
+    }
+
+    /**
+     * The segments of a log at one point in time. Indexes count from the first segment
+     * kept, so they stay the same across views of the same log until it is downsampled.
+     */
+    public static final class View {
+        private final SegmentLog log;
+        private final int generation;
+        private final long[][] chunks;
+        private final int chunkBase;
+        private final int first;
+        private final int end;
+
+        private View(SegmentLog log, int generation, long[][] chunks, int chunkBase, int first, int end) {
+            this.log = log;
+            this.generation = generation;
+            this.chunks = chunks;
+            this.chunkBase = chunkBase;
+            this.first = first;
+            this.end = end;
+        }
+
+        /**
+         * @return index of the oldest segment the view holds.
+         */
+        public int first() {
+            return first;
+        }
+
+        /**
+         * @return one past the index of the newest segment.
+         */
+        public int end() {
+            return end;
+        }
+
+        public int size() {
+            return end - first;
+        }
+
+        /**
+         * @return the view cut down to the segments before end.
+         */
+        public View upTo(int end) {
+            if (end > this.end)
+                throw new IndexOutOfBoundsException("end " + end + ", view ends at " + this.end);
+            return new View(log, generation, chunks, chunkBase, Math.min(first, end), end);
+        }
+
+        /**
+         * @return {@code true} if this view is the earlier one plus the segments added
+         * since, so a reader that has seen the earlier one only needs the rest.
+         */
+        public boolean continues(View earlier) {
+            return earlier != null && log == earlier.log && generation == earlier.generation
+                    && end >= earlier.end && first <= earlier.end;
+        }
+
+        public int x(int index) {
+            return segmentX(segment(index));
+        }
+
+        public int y(int index) {
+            return segmentY(segment(index));
+        }
+
+        public DIRECTION from(int index) {
+            return segmentFrom(segment(index));
+        }
+
+        public DIRECTION to(int index) {
+            return segmentTo(segment(index));
+        }
+
+        private long segment(int index) {
+            if (index < first || index >= end)
+                throw new IndexOutOfBoundsException("index " + index + ", view holds " + first + " to " + end);
+            return chunks[(index >> CHUNK_BITS) - chunkBase][index & CHUNK_MASK];
+        }
+    }
+}
@@ -0,0 +1,434 @@
+/*
+ *     This is the source code of rover project.
+ *     Copyright (C)   Ali Nasrabadi  2018-2018
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package com.nasrabadiam.rover.engine;
+
+import com.nasrabadiam.rover.DIRECTION;
+import com.nasrabadiam.rover.LandSize;
+import com.nasrabadiam.rover.Path;
+import com.nasrabadiam.rover.Position;
+import com.nasrabadiam.rover.Rover;
+import com.nasrabadiam.rover.model.RoverResponseModel;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A single mission being run one command at a time. Use {@link RoverEngine#run} to get
+ * the result straight away, or {@link RoverEngine#start} and call {@link #step()} at
+ * whatever pace the caller needs.
+ * <p>
+ * The rover is kept as a packed {@link RoverState}, so without a listener a step doesn't
+ * allocate anything. The {@link Rover}, {@link Position} and {@link Path} objects are only
+ * created to be handed to the listener.
+ */
+public class Simulation {
+
+    /**
+     * Characters read from a command stream at a time, see {@link #run(Reader)}.
+     */
+    static final int STREAM_BUFFER_SIZE = 8192;
+
+    private final String command;
+    private final CommandProgram program;
+    private final LandSize landSize;
+    private final List<Position> weirList;
+    private final MissionListener listener;
+
+    private OccupancyIndex weirs;
+    private ObstacleLines obstacleLines;
+
+    private long state;
+    private int lastCurrentPosHeading = Headings.TOP;
+    private int nextStep = 0;
+    private MissionResult result;
+
+    Simulation(RoverResponseModel mission, CommandProgram program, MissionListener listener) {
+        this(mission, mission.command == null ? "" : mission.command, program, listener);
+    }
+
+    /**
+     * A simulation whose command isn't known up front. It can only be run with
+     * {@link #run(Reader)}.
+     */
+    static Simulation streaming(RoverResponseModel mission, MissionListener listener) {
+        return new Simulation(mission, null, null, listener);
+    }
+
+    private Simulation(RoverResponseModel mission, String command, CommandProgram program,
+                       MissionListener listener) {
+        this.command = command;
+        this.program = program;
+        this.landSize = LandSize.of(mission);
+        this.weirList = mission.weirs == null ? Collections.<Position>emptyList() : mission.weirs;
+        this.listener = listener;
+        Position start = mission.startPoint;
+        this.state = RoverState.pack(start.getX(), start.getY(), Headings.TOP);
+
+        if (!landSize.contains(start.getX(), start.getY())) {
+            // a rover that starts off the land never moves, so no position outside it gets
+            // packed or reaches the listener as a path
+            result = new MissionResult(MissionResult.Status.OUT_OF_LAND, start, DIRECTION.TOP, 0, 0, start);
+            if (listener != null)
+                listener.onOutOfLand(0, start);
+            return;
+        }
+
+        if (listener != null)
+            notifyRoverChanged();
+
+        if (weirList.contains(start)) {
+            crash(0);
+        } else if (command != null && command.isEmpty()) {
+            finish(MissionResult.Status.COMPLETED, -1, null);
+        }
+    }
+
+    public boolean isFinished() {
+        return result != null;
+    }
+
+    /**
+     * @return the result, or {@code null} while the mission is still running.
+     */
+    public MissionResult getResult() {
+        return result;
+    }
+
+    /**
+     * The rover as a packed {@link RoverState}.
+     */
+    long state() {
+        return state;
+    }
+
+    /**
+     * Runs the next command.
+     *
+     * @return {@code true} if there are more commands to run.
+     */
+    public boolean step() {
+        if (isFinished())
+            return false;
+
+        apply(command.charAt(nextStep));
+        completeIfDone();
+        return !isFinished();
+    }
+
+    /**
+     * Runs all the remaining commands. Without a listener the compiled {@link CommandProgram}
+     * is interpreted instead: a move op is taken in one jump to the first weir or edge along
+     * the heading and a turn op applies its net rotation, so the work depends on the number
+     * of turns rather than the number of moves. The crash or out-of-land step is the same
+     * one {@link #step()} would report.
+     */
+    public MissionResult run() {
+        if (listener != null) {
+            while (!isFinished()) {
+                step();
+            }
+            return result;
+        }
+
+        if (program.period() > 0) {
+            runPeriodic();
+        } else {
+            int index = program.indexOfStep(nextStep);
+            int boundary = index < program.size() ? program.step(index) : command.length();
+            while (!isFinished() && nextStep < boundary) {
+                step();
+            }
+            execute(program, index, 0);
+        }
+
+        if (!isFinished()) {
+            nextStep = command.length();
+            completeIfDone();
+        }
+        return result;
+    }
+
+    /**
+     * Interprets the ops of a program from the given index, the steps of the program are
+     * counted from offset in the command.
+     */
+    private void execute(CommandProgram program, int index, int offset) {
+        if (obstacleLines == null)
+            obstacleLines = new ObstacleLines(weirList);
+        for (; index < program.size() && !isFinished(); index++) {
+            int op = program.op(index);
+            if (CommandProgram.kind(op) == CommandProgram.MOVE) {
+                moveStraight(offset + program.step(index), CommandProgram.count(op));
+            } else {
+                state = RoverState.withHeading(state,
+                        Headings.ROTATE[CommandProgram.kind(op)][RoverState.heading(state)]);
+            }
+        }
+    }
+
+    /**
+     * Runs a command that repeats a pattern. If a period turns the rover, or doesn't move
+     * it, the rover is back where it started after at most four periods and keeps going over
+     * the same cells, so once those periods are run the rest are skipped. Otherwise every
+     * period moves the same cells a fixed distance further, and the periods up to the first
+     * one whose bounding box holds a weir or crosses the edge are skipped arithmetically.
+     * The periods near a hazard are run normally.
+     */
+    private void runPeriodic() {
+        int period = program.period();
+        while (!isFinished() && nextStep % period != 0) {
+            step();
+        }
+        if (isFinished())
+            return;
+
+        int periods = program.length() / period - nextStep / period;
+        CommandProgram pattern = program.periodProgram();
+        Cycle cycle = Cycle.of(pattern, RoverState.heading(state));
+        int done = 0;
+        if (cycle.isClosed()) {
+            int closedLength = cycle.closedLength();
+            for (; done < Math.min(closedLength, periods) && !isFinished(); done++) {
+                runPeriod(pattern, period);
+            }
+            if (!isFinished()) {
+                int skipped = (periods - done) / closedLength * closedLength;
+                nextStep += skipped * period;
+                done += skipped;
+            }
+        } else {
+            int x = RoverState.x(state);
+            int y = RoverState.y(state);
+            int heading = RoverState.heading(state);
+            long lastInsideLand = cycle.lastInsideLand(x, y, landSize);
+            long[] weirPeriods = cycle.weirPeriods(weirList, x, y, periods);
+            int hazard = 0;
+            while (done < periods && !isFinished()) {
+                while (hazard < weirPeriods.length && weirPeriods[hazard + 1] < done) {
+                    hazard += 2;
+                }
+                long safe = hazard < weirPeriods.length ? weirPeriods[hazard] : periods;
+                safe = Math.min(Math.min(safe, lastInsideLand + 1), periods);
+                if (safe > done) {
+                    state = RoverState.pack(x + (int) (cycle.dx * safe), y + (int) (cycle.dy * safe), heading);
+                    nextStep += (int) (safe - done) * period;
+                    done = (int) safe;
+                } else {
+                    runPeriod(pattern, period);
+                    done++;
+                }
+            }
+        }
+
+        for (; done < periods && !isFinished(); done++) {
+            runPeriod(pattern, period);
+        }
+        if (!isFinished())
+            execute(program.tailProgram(), 0, nextStep);
+    }
+
+    /**
+     * Runs the commands read from the stream as they arrive, only a fixed buffer of them is
+     * held at a time, so the memory doesn't grow with the length of the command. Line
+     * breaks are skipped and not counted as steps. Without a listener the moves between two
+     * turns are taken in one jump like {@link #run()} does.
+     *
+     * @throws InvalidCommandException if an unknown character arrives, the commands before
+     *                                 it have already run.
+     */
+    MissionResult run(Reader commands) throws IOException {
+        char[] buffer = new char[STREAM_BUFFER_SIZE];
+        int moves = 0;
+        int read;
+        while (!isFinished() && (read = commands.read(buffer)) != -1) {
+            for (int index = 0; index < read && !isFinished(); index++) {
+                char current = buffer[index];
+                if (current == '\n' || current == '\r')
+                    continue;
+                if (current != 'M' && current != 'L' && current != 'R')
+                    throw new InvalidCommandException(nextStep + moves, current);
+
+                if (listener != null) {
+                    apply(current);
+                } else if (current == 'M') {
+                    moves++;
+                } else {
+                    moves = flushMoves(moves);
+                    if (!isFinished())
+                        apply(current);
+                }
+            }
+        }
+        flushMoves(moves);
+
+        if (!isFinished())
+            finish(MissionResult.Status.COMPLETED, -1, null);
+        return result;
+    }
+
+    /**
+     * Takes the moves gathered from a stream in one jump.
+     *
+     * @return the moves left to take, always none.
+     */
+    private int flushMoves(int moves) {
+        if (moves > 0 && !isFinished()) {
+            if (obstacleLines == null)
+                obstacleLines = new ObstacleLines(weirList);
+            int step = nextStep;
+            moveStraight(step, moves);
+            if (!isFinished())
+                nextStep = step + moves;
+        }
+        return 0;
+    }
+
+    private void runPeriod(CommandProgram pattern, int period) {
+        int start = nextStep;
+        execute(pattern, 0, start);
+        if (!isFinished())
+            nextStep = start + period;
+    }
+
+    private void apply(char current) {
+        if (weirs == null)
+            weirs = OccupancyIndex.of(weirList, landSize.getWidth(), landSize.getHeight());
+
+        int step = nextStep++;
+        if (current == 'M') {
+            move(step);
+        } else {
+            turn(current);
+        }
+    }
+
+    private void turn(char current) {
+        switch (current) {
+            case 'R':
+                state = RoverState.withHeading(state, Headings.TURN_RIGHT[RoverState.heading(state)]);
+                break;
+            case 'L':
+                state = RoverState.withHeading(state, Headings.TURN_LEFT[RoverState.heading(state)]);
+                break;
+            default:
+                return;
+        }
+        if (listener != null)
+            notifyRoverChanged();
+    }
+
+    private void move(int step) {
+        int x = RoverState.x(state);
+        int y = RoverState.y(state);
+        int heading = RoverState.heading(state);
+        int nextX = x + Headings.DX[heading];
+        int nextY = y + Headings.DY[heading];
+
+        if (listener != null)
+            listener.onPathAdded(new Path(Headings.toDirection(lastCurrentPosHeading),
+                    Headings.toDirection(heading)), new Position(x, y));
+        lastCurrentPosHeading = heading;
+
+        if (!landSize.contains(nextX, nextY)) {
+            outOfLand(step, nextX, nextY);
+            return;
+        }
+
+        state = RoverState.pack(nextX, nextY, heading);
+        if (listener != null)
+            notifyRoverChanged();
+
+        if (weirs.isOccupied(nextX, nextY))
+            crash(step);
+    }
+
+    /**
+     * Moves up to count cells along the heading in one go, stopping on the first weir or
+     * before leaving the land.
+     */
+    private void moveStraight(int step, int count) {
+        int x = RoverState.x(state);
+        int y = RoverState.y(state);
+        int heading = RoverState.heading(state);
+        int toWeir = obstacleLines.distanceToObstacle(x, y, heading);
+        int toEdge = distanceToEdge(x, y, heading);
+        lastCurrentPosHeading = heading;
+
+        if (toWeir <= count && toWeir <= toEdge) {
+            state = RoverState.pack(x + Headings.DX[heading] * toWeir, y + Headings.DY[heading] * toWeir, heading);
+            nextStep = step + toWeir;
+            crash(nextStep - 1);
+        } else if (toEdge < count) {
+            state = RoverState.pack(x + Headings.DX[heading] * toEdge, y + Headings.DY[heading] * toEdge, heading);
+            nextStep = step + toEdge + 1;
+            outOfLand(nextStep - 1, RoverState.x(state) + Headings.DX[heading],
+                    RoverState.y(state) + Headings.DY[heading]);
+        } else {
+            state = RoverState.pack(x + Headings.DX[heading] * count, y + Headings.DY[heading] * count, heading);
+        }
+    }
+
+    /**
+     * Number of moves along the heading that keep the rover inside the land.
+     */
+    private int distanceToEdge(int x, int y, int heading) {
+        switch (heading) {
+            case Headings.RIGHT:
+                return landSize.getWidth() - 1 - x;
+            case Headings.LEFT:
+                return x;
+            case Headings.TOP:
+                return landSize.getHeight() - 1 - y;
+            default:
+                return y;
+        }
+    }
+
+    private void completeIfDone() {
+        if (!isFinished() && command != null && nextStep == command.length())
+            finish(MissionResult.Status.COMPLETED, -1, null);
+    }
+
+    private void notifyRoverChanged() {
+        listener.onRoverChanged(new Rover(Headings.toDirection(RoverState.heading(state))),
+                new Position(RoverState.x(state), RoverState.y(state)));
+    }
+
+    private void crash(int step) {
+        Position position = new Position(RoverState.x(state), RoverState.y(state));
+        finish(MissionResult.Status.CRASHED, step, position);
+        if (listener != null)
+            listener.onCrash(step, position);
+    }
+
+    private void outOfLand(int step, int nextX, int nextY) {
+        Position nextRoverPosition = new Position(nextX, nextY);
+        finish(MissionResult.Status.OUT_OF_LAND, step, nextRoverPosition);
+        if (listener != null)
+            listener.onOutOfLand(step, nextRoverPosition);
+    }
+
+    private void finish(MissionResult.Status status, int failureStep, Position failurePosition) {
+        result = new MissionResult(status, new Position(RoverState.x(state), RoverState.y(state)),
+                Headings.toDirection(RoverState.heading(state)), nextStep, failureStep, failurePosition);
+    }
+}
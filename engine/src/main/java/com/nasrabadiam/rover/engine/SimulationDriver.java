@@ -0,0 +1,142 @@
+/*
+ *     This is the source code of rover project.
+ *     Copyright (C)   Ali Nasrabadi  2018-2018
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package com.nasrabadiam.rover.engine;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs a {@link Simulation} one step per tick of a {@link TickScheduler}, with controls to
+ * pause it, resume it and take single steps while paused. Every step runs on a tick, so the
+ * listener of the simulation is only called from the scheduler. Ticking ends for good once
+ * the {@link CancellationToken} is cancelled or the ticking thread is interrupted.
+ */
+public class SimulationDriver {
+
+    public interface OnFinishedListener {
+        void onFinished(MissionResult result);
+    }
+
+    private final Simulation simulation;
+    private final TickScheduler scheduler;
+    private final OnFinishedListener onFinishedListener;
+    private final CancellationToken token;
+    private final AtomicInteger pendingSteps = new AtomicInteger();
+    private volatile boolean paused;
+    private volatile boolean stopped;
+
+    private final TickScheduler.Tick runTick = new TickScheduler.Tick() {
+        @Override
+        public boolean onTick() {
+            return !shouldStop() && step();
+        }
+    };
+
+    private final TickScheduler.Tick stepTick = new TickScheduler.Tick() {
+        @Override
+        public boolean onTick() {
+            return !shouldStop() && step() && pendingSteps.decrementAndGet() > 0;
+        }
+    };
+
+    public SimulationDriver(Simulation simulation, TickScheduler scheduler, OnFinishedListener onFinishedListener) {
+        this(simulation, scheduler, onFinishedListener, new CancellationToken());
+    }
+
+    public SimulationDriver(Simulation simulation, TickScheduler scheduler, OnFinishedListener onFinishedListener,
+                            CancellationToken token) {
+        this.simulation = simulation;
+        this.scheduler = scheduler;
+        this.onFinishedListener = onFinishedListener;
+        this.token = token;
+    }
+
+    public synchronized void start() {
+        if (stopped)
+            return;
+        if (simulation.isFinished()) {
+            finished();
+        } else if (!paused) {
+            scheduler.start(runTick);
+        }
+    }
+
+    public synchronized void pause() {
+        if (paused || stopped)
+            return;
+        paused = true;
+        pendingSteps.set(0);
+        scheduler.stop();
+    }
+
+    public synchronized void resume() {
+        if (!paused || stopped)
+            return;
+        paused = false;
+        pendingSteps.set(0);
+        if (!simulation.isFinished())
+            scheduler.start(runTick);
+    }
+
+    /**
+     * Takes one more step on the next tick, only while paused.
+     */
+    public synchronized void stepOnce() {
+        if (!paused || stopped || simulation.isFinished())
+            return;
+        if (pendingSteps.getAndIncrement() == 0)
+            scheduler.start(stepTick);
+    }
+
+    /**
+     * Stops the mission for good, the finished listener isn't called.
+     */
+    public synchronized void stop() {
+        stopped = true;
+        scheduler.stop();
+    }
+
+    public boolean isPaused() {
+        return paused;
+    }
+
+    public Simulation getSimulation() {
+        return simulation;
+    }
+
+    private boolean shouldStop() {
+        if (!stopped && !token.shouldStop())
+            return false;
+        stopped = true;
+        return true;
+    }
+
+    private boolean step() {
+        if (simulation.step())
+            return true;
+        finished();
+        return false;
+    }
+
+    private void finished() {
+        pendingSteps.set(0);
+        if (onFinishedListener != null && !stopped && !token.isCancelled())
+            onFinishedListener.onFinished(simulation.getResult());
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ *     This is the source code of rover project.
+ *     Copyright (C)   Ali Nasrabadi  2018-2018
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package com.nasrabadiam.rover.engine;
+
+/**
+ * Decides when a running mission takes its next step. Ticks of one scheduler never run at
+ * the same time, so the mission only needs to be safe to hand between threads.
+ */
+public interface TickScheduler {
+
+    interface Tick {
+        /**
+         * @return {@code true} to keep ticking.
+         */
+        boolean onTick();
+    }
+
+    /**
+     * Starts calling the tick, replacing the one that was running if any.
+     */
+    void start(Tick tick);
+
+    /**
+     * Stops calling the current tick. A tick that has already begun is let finish.
+     */
+    void stop();
+}
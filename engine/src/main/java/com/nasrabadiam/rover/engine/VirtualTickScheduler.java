@@ -0,0 +1,77 @@
+/*
+ *     This is the source code of rover project.
+ *     Copyright (C)   Ali Nasrabadi  2018-2018
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package com.nasrabadiam.rover.engine;
+
+/**
+ * Ticks on a clock that only moves when {@link #advance(long)} is called, on the caller's
+ * thread. Meant for tests that need to control time.
+ */
+public class VirtualTickScheduler implements TickScheduler {
+
+    private final long periodNanos;
+    private long now;
+    private long nextTick;
+    private Tick tick;
+
+    public VirtualTickScheduler(long periodNanos) {
+        if (periodNanos <= 0)
+            throw new IllegalArgumentException("period must be positive");
+        this.periodNanos = periodNanos;
+    }
+
+    @Override
+    public void start(Tick tick) {
+        this.tick = tick;
+        this.nextTick = now + periodNanos;
+    }
+
+    @Override
+    public void stop() {
+        tick = null;
+    }
+
+    public boolean isRunning() {
+        return tick != null;
+    }
+
+    public long now() {
+        return now;
+    }
+
+    /**
+     * Moves the clock forward, running every tick that falls due on the way.
+     *
+     * @return the number of ticks run.
+     */
+    public int advance(long nanos) {
+        long target = now + nanos;
+        int ticks = 0;
+        while (tick != null && nextTick <= target) {
+            now = nextTick;
+            nextTick += periodNanos;
+            Tick current = tick;
+            ticks++;
+            if (!current.onTick() && tick == current)
+                tick = null;
+        }
+        now = target;
+        return ticks;
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ *     This is the source code of rover project.
+ *     Copyright (C)   Ali Nasrabadi  2018-2018
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package com.nasrabadiam.rover.engine;
+
+import com.nasrabadiam.rover.DIRECTION;
+import com.nasrabadiam.rover.Path;
+import com.nasrabadiam.rover.Position;
+import com.nasrabadiam.rover.Rover;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A {@link MissionListener} that turns the events of a mission into {@link WorldSnapshot}s
+ * and publishes the latest one through an atomic reference. The mission never waits for a
+ * reader and a reader only ever sees whole snapshots; a slow reader just skips the ones it
+ * missed.
+ */
+public class WorldPublisher implements MissionListener {
+
+    public interface OnPublishListener {
+        /**
+         * Called on the mission thread after every snapshot, meant for scheduling a redraw.
+         */
+        void onPublished(WorldSnapshot snapshot);
+    }
+
+    private final AtomicReference<WorldSnapshot> latest = new AtomicReference<>();
+    private final SegmentLog paths;
+    private final OnPublishListener onPublishListener;
+
+    private Position roverPosition;
+    private DIRECTION roverDirection = DIRECTION.TOP;
+    private MissionResult.Status status;
+    /**
+     * The first rover event places it before any step is taken.
+     */
+    private int step = -1;
+
+    public WorldPublisher(SegmentLog paths, OnPublishListener onPublishListener) {
+        this.paths = paths;
+        this.onPublishListener = onPublishListener;
+    }
+
+    /**
+     * @return the newest snapshot, or {@code null} before the first event.
+     */
+    public WorldSnapshot getLatest() {
+        return latest.get();
+    }
+
+    @Override
+    public void onRoverChanged(Rover rover, Position position) {
+        roverPosition = position;
+        roverDirection = rover.getDirection();
+        step++;
+        publish();
+    }
+
+    @Override
+    public void onPathAdded(Path path, Position position) {
+        paths.add(path, position);
+        publish();
+    }
+
+    @Override
+    public void onCrash(int step, Position position) {
+        status = MissionResult.Status.CRASHED;
+        publish();
+    }
+
+    @Override
+    public void onOutOfLand(int step, Position nextPosition) {
+        status = MissionResult.Status.OUT_OF_LAND;
+        publish();
+    }
+
+    private void publish() {
+        WorldSnapshot snapshot = new WorldSnapshot(roverPosition, roverDirection, paths.view(), status,
+                Math.max(0, step), System.nanoTime());
+        latest.set(snapshot);
+        if (onPublishListener != null)
+            onPublishListener.onPublished(snapshot);
+    }
+}
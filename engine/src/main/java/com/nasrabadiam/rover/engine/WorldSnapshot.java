@@ -0,0 +1,87 @@
+/*
+ *     This is the source code of rover project.
+ *     Copyright (C)   Ali Nasrabadi  2018-2018
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package com.nasrabadiam.rover.engine;
+
+import com.nasrabadiam.rover.DIRECTION;
+import com.nasrabadiam.rover.Position;
+
+/**
+ * What a mission looks like at one moment: the rover and its path. Snapshots never change
+ * once made, so a renderer can read one on any thread while the mission goes on.
+ */
+public final class WorldSnapshot {
+
+    private final Position roverPosition;
+    private final DIRECTION roverDirection;
+    private final SegmentLog.View paths;
+    private final MissionResult.Status status;
+    private final int step;
+    private final long publishedNanos;
+
+    public WorldSnapshot(Position roverPosition, DIRECTION roverDirection, SegmentLog.View paths,
+                         MissionResult.Status status) {
+        this(roverPosition, roverDirection, paths, status, 0, System.nanoTime());
+    }
+
+    public WorldSnapshot(Position roverPosition, DIRECTION roverDirection, SegmentLog.View paths,
+                         MissionResult.Status status, int step, long publishedNanos) {
+        this.roverPosition = roverPosition;
+        this.roverDirection = roverDirection;
+        this.paths = paths;
+        this.status = status;
+        this.step = step;
+        this.publishedNanos = publishedNanos;
+    }
+
+    public Position getRoverPosition() {
+        return roverPosition;
+    }
+
+    public DIRECTION getRoverDirection() {
+        return roverDirection;
+    }
+
+    public SegmentLog.View getPaths() {
+        return paths;
+    }
+
+    /**
+     * @return {@link MissionResult.Status#CRASHED} or {@link MissionResult.Status#OUT_OF_LAND}
+     * once the mission has failed, otherwise {@code null}.
+     */
+    public MissionResult.Status getStatus() {
+        return status;
+    }
+
+    /**
+     * @return how many steps the rover had taken when the snapshot was made.
+     */
+    public int getStep() {
+        return step;
+    }
+
+    /**
+     * @return the {@link System#nanoTime()} the snapshot was made at, to measure how long it
+     * takes to reach the screen.
+     */
+    public long getPublishedNanos() {
+        return publishedNanos;
+    }
+}
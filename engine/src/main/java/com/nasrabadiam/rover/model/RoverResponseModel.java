@@ -19,6 +19,7 @@
 package com.nasrabadiam.rover.model;
 
 import com.google.gson.annotations.SerializedName;
+import com.nasrabadiam.rover.LandSize;
 import com.nasrabadiam.rover.Position;
 
 import java.util.List;
@@ -35,11 +36,15 @@ public class RoverResponseModel {
     @SerializedName("command")
     public String command;
 
+    @SerializedName("land_size")
+    public LandSize landSize;
+
     @NonNull
     @Override
     public String toString() {
         return "startPoint=" + startPoint +
                 "\nweirs=" + weirs.toString() +
-                "\ncommand=" + command;
+                "\ncommand=" + command +
+                "\nlandSize=" + landSize;
     }
 }
@@ -0,0 +1,96 @@
+/*
+ *     This is the source code of rover project.
+ *     Copyright (C)   Ali Nasrabadi  2018-2018
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package com.nasrabadiam.rover.engine;
+
+import com.nasrabadiam.rover.Position;
+import com.nasrabadiam.rover.model.RoverResponseModel;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class BatchRunnerTest {
+
+    @Test
+    public void runsEveryMissionInOrder() {
+        List<RoverResponseModel> missions = new ArrayList<>();
+        for (int index = 0; index < 1000; index++) {
+            RoverResponseModel mission = new RoverResponseModel();
+            mission.startPoint = new Position(index % 10, 0);
+            mission.weirs = Collections.singletonList(new Position(5, 3));
+            mission.command = index % 3 == 0 ? "MMMMMMMMMMMMMMMMMMMMM" : "MMMRM";
+            missions.add(mission);
+        }
+
+        BatchRunner runner = new BatchRunner();
+        BatchRunner.Result batch = runner.run(missions);
+        runner.shutdown();
+
+        RoverEngine engine = new RoverEngine();
+        int crashed = 0;
+        for (int index = 0; index < missions.size(); index++) {
+            MissionResult expected = engine.run(missions.get(index));
+            MissionResult actual = batch.getResults().get(index);
+            assertEquals(expected.getStatus(), actual.getStatus());
+            assertEquals(expected.getPosition(), actual.getPosition());
+            assertEquals(expected.getFailureStep(), actual.getFailureStep());
+            if (actual.getStatus() == MissionResult.Status.CRASHED)
+                crashed++;
+        }
+
+        BatchStats stats = batch.getStats();
+        assertEquals(1000, stats.getMissionCount());
+        assertEquals(crashed, stats.getCrashedCount());
+        assertEquals(1000, stats.getCompletedCount() + stats.getCrashedCount() + stats.getOutOfLandCount());
+    }
+
+    @Test
+    public void failsMalformedMissionsWithoutStoppingTheBatch() {
+        List<RoverResponseModel> missions = new ArrayList<>();
+        for (int index = 0; index < 200; index++) {
+            RoverResponseModel mission = new RoverResponseModel();
+            mission.startPoint = new Position(1, 1);
+            mission.command = "MMRM";
+            missions.add(mission);
+        }
+        missions.get(50).command = "MMx";
+        missions.get(150).startPoint = null;
+
+        BatchRunner runner = new BatchRunner();
+        BatchRunner.Result batch = runner.run(missions);
+        runner.shutdown();
+
+        MissionResult malformed = batch.getResults().get(50);
+        assertEquals(MissionResult.Status.FAILED, malformed.getStatus());
+        assertTrue(malformed.getError() instanceof InvalidCommandException);
+        assertEquals(MissionResult.Status.FAILED, batch.getResults().get(150).getStatus());
+        assertEquals(MissionResult.Status.COMPLETED, batch.getResults().get(51).getStatus());
+
+        BatchStats stats = batch.getStats();
+        assertEquals(200, stats.getMissionCount());
+        assertEquals(2, stats.getFailedCount());
+        assertEquals(198, stats.getCompletedCount());
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ *     This is the source code of rover project.
+ *     Copyright (C)   Ali Nasrabadi  2018-2018
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package com.nasrabadiam.rover.engine;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CellGridTest {
+
+    @Test
+    public void storesKindsAndDirectionsPerCell() {
+        CellGrid grid = new CellGrid();
+        grid.setPath(3, 4, Headings.TOP, Headings.LEFT);
+        grid.setRover(-5, 70, Headings.BOTTOM);
+        grid.setPath(1000000, 2000000, Headings.RIGHT, Headings.RIGHT);
+
+        assertEquals(3, grid.size());
+        assertEquals(3, grid.chunkCount());
+        assertEquals(CellGrid.PATH, grid.kind(3, 4));
+        assertEquals(Headings.TOP, CellGrid.pathFrom(grid.directions(3, 4)));
+        assertEquals(Headings.LEFT, CellGrid.pathTo(grid.directions(3, 4)));
+        assertEquals(CellGrid.ROVER, grid.kind(-5, 70));
+        assertEquals(Headings.BOTTOM, grid.directions(-5, 70));
+        assertEquals(CellGrid.EMPTY, grid.kind(4, 3));
+
+        grid.clearCell(3, 4);
+        assertEquals(2, grid.size());
+        assertEquals(CellGrid.EMPTY, grid.kind(3, 4));
+
+        grid.clear();
+        assertEquals(0, grid.size());
+        assertEquals(CellGrid.EMPTY, grid.kind(-5, 70));
+    }
+
+    @Test
+    public void visitsOnlyCellsInsideTheRange() {
+        CellGrid grid = new CellGrid();
+        grid.setPath(10, 10, Headings.TOP, Headings.TOP);
+        grid.setRover(70, 20, Headings.LEFT);
+        grid.setPath(9, 10, Headings.TOP, Headings.TOP);
+        grid.setPath(500, 500, Headings.TOP, Headings.TOP);
+
+        final Map<String, Integer> visited = new HashMap<>();
+        grid.forEachIn(10, 0, 70, 30, new CellGrid.Visitor() {
+            @Override
+            public void visit(int x, int y, int kind, int directions) {
+                visited.put(x + "," + y, kind);
+            }
+        });
+
+        assertEquals(2, visited.size());
+        assertEquals(CellGrid.PATH, (int) visited.get("10,10"));
+        assertEquals(CellGrid.ROVER, (int) visited.get("70,20"));
+    }
+
+    @Test
+    public void remembersVisitsUnderTheRover() {
+        CellGrid grid = new CellGrid();
+        DensityPyramid density = new DensityPyramid(2);
+        // the rover goes right and comes back, the way the renderer puts it on the grid
+        int[][] steps = {{0, 0, Headings.RIGHT}, {1, 0, Headings.LEFT}, {0, 0, Headings.LEFT}};
+        grid.setRover(0, 0, Headings.RIGHT);
+        for (int[] step : steps) {
+            int x = step[0];
+            int y = step[1];
+            if (grid.markVisited(x, y))
+                density.add(x, y);
+            grid.setPath(x, y, step[2], step[2]);
+            int nextX = x == 0 ? 1 : 0;
+            grid.setRover(nextX, 0, step[2]);
+        }
+
+        assertEquals(CellGrid.ROVER, grid.kind(1, 0));
+        assertTrue(grid.isVisited(1, 0));
+        assertTrue(grid.isVisited(0, 0));
+        assertFalse(grid.isVisited(2, 0));
+        assertEquals(2, grid.size());
+        // (0, 0) was passed twice but is one cell of the tile
+        assertEquals(2, density.count(1, 0, 0));
+        assertEquals(2, density.count(2, 0, 0));
+
+        grid.clearCell(1, 0);
+        assertEquals(CellGrid.EMPTY, grid.kind(1, 0));
+        assertTrue(grid.isVisited(1, 0));
+        grid.clear();
+        assertFalse(grid.isVisited(0, 0));
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ *     This is the source code of rover project.
+ *     Copyright (C)   Ali Nasrabadi  2018-2018
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package com.nasrabadiam.rover.engine;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class ChunkedGridTest {
+
+    @Test
+    public void onlyAllocatesChunksThatHoldValues() {
+        ChunkedGrid<String> grid = new ChunkedGrid<>();
+        grid.set(3, 4, "a");
+        grid.set(5, 6, "b");
+        grid.set(1000000, 2000000, "c");
+
+        assertEquals(3, grid.size());
+        assertEquals(2, grid.chunkCount());
+        assertEquals("a", grid.get(3, 4));
+        assertEquals("c", grid.get(1000000, 2000000));
+        assertNull(grid.get(4, 3));
+
+        grid.set(1000000, 2000000, null);
+        assertEquals(2, grid.size());
+        assertEquals(1, grid.chunkCount());
+    }
+
+    @Test
+    public void visitsEveryValueWithItsCoordinates() {
+        ChunkedGrid<String> grid = new ChunkedGrid<>();
+        grid.set(0, 0, "origin");
+        grid.set(63, 64, "edge");
+        grid.set(-1, -70, "negative");
+        grid.set(12345, 678, "far");
+
+        final Map<String, String> visited = new HashMap<>();
+        grid.forEach(new ChunkedGrid.Visitor<String>() {
+            @Override
+            public void visit(int x, int y, String value) {
+                visited.put(value, x + "," + y);
+            }
+        });
+
+        assertEquals(4, visited.size());
+        assertEquals("0,0", visited.get("origin"));
+        assertEquals("63,64", visited.get("edge"));
+        assertEquals("-1,-70", visited.get("negative"));
+        assertEquals("12345,678", visited.get("far"));
+    }
+
+    @Test
+    public void visitsOnlyValuesInsideTheRange() {
+        ChunkedGrid<String> grid = new ChunkedGrid<>();
+        grid.set(10, 10, "inside");
+        grid.set(70, 20, "otherChunk");
+        grid.set(9, 10, "left");
+        grid.set(71, 20, "right");
+        grid.set(500, 500, "far");
+
+        final Map<String, String> visited = new HashMap<>();
+        grid.forEachIn(10, 0, 70, 30, new ChunkedGrid.Visitor<String>() {
+            @Override
+            public void visit(int x, int y, String value) {
+                visited.put(value, x + "," + y);
+            }
+        });
+
+        assertEquals(2, visited.size());
+        assertEquals("10,10", visited.get("inside"));
+        assertEquals("70,20", visited.get("otherChunk"));
+    }
+}
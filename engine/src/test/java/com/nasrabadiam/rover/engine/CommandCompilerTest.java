@@ -0,0 +1,105 @@
+/*
+ *     This is the source code of rover project.
+ *     Copyright (C)   Ali Nasrabadi  2018-2018
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package com.nasrabadiam.rover.engine;
+
+import com.nasrabadiam.rover.model.RoverResponseModel;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+public class CommandCompilerTest {
+
+    @Test
+    public void foldsTurnsAndMergesMoves() {
+        CommandProgram program = CommandCompiler.compile("MMMRRRMRLMRRM");
+
+        assertEquals(6, program.size());
+        assertEquals(CommandProgram.move(3), program.op(0));
+        assertEquals(CommandProgram.turn(3), program.op(1));
+        assertEquals(CommandProgram.move(1), program.op(2));
+        assertEquals(CommandProgram.move(1), program.op(3));
+        assertEquals(CommandProgram.turn(2), program.op(4));
+        assertEquals(CommandProgram.move(1), program.op(5));
+
+        assertEquals(0, program.step(0));
+        assertEquals(3, program.step(1));
+        assertEquals(6, program.step(2));
+        assertEquals(9, program.step(3));
+        assertEquals(13, program.length());
+    }
+
+    @Test
+    public void reportsInvalidCharacter() {
+        try {
+            CommandCompiler.compile("MMRx");
+            fail();
+        } catch (InvalidCommandException e) {
+            assertEquals(3, e.getIndex());
+            assertEquals('x', e.getCharacter());
+        }
+    }
+
+    @Test
+    public void cachesCompiledPrograms() {
+        CommandCompiler compiler = new CommandCompiler(2);
+        CommandProgram program = compiler.get("MRM");
+
+        assertSame(program, compiler.get("MRM"));
+    }
+
+    @Test
+    public void compiledProgramMatchesStepping() {
+        Random random = new Random(7);
+        RoverEngine engine = new RoverEngine();
+        String[] pieces = {"M", "MM", "MMMMM", "R", "L", "RR", "RL", "LLL", "RRRR"};
+        for (int index = 0; index < 2000; index++) {
+            StringBuilder command = new StringBuilder();
+            int length = random.nextInt(60);
+            for (int piece = 0; piece < length; piece++) {
+                command.append(pieces[random.nextInt(pieces.length)]);
+            }
+            RoverResponseModel mission = Missions.random(random, 25, 25, random.nextInt(40), command.toString());
+
+            Missions.assertSameResult(Missions.stepByStep(mission), engine.run(mission));
+        }
+    }
+
+    @Test
+    public void resumesInterpretingAfterStepping() {
+        Random random = new Random(11);
+        RoverEngine engine = new RoverEngine();
+        for (int index = 0; index < 500; index++) {
+            RoverResponseModel mission = Missions.random(random, 30, 30, random.nextInt(30),
+                    Missions.randomCommand(random, 1 + random.nextInt(100), 6) + "RLRRRR");
+            Simulation simulation = engine.start(mission, null);
+            int steps = random.nextInt(20);
+            for (int step = 0; step < steps; step++) {
+                simulation.step();
+            }
+
+            Missions.assertSameResult(Missions.stepByStep(mission), simulation.run());
+        }
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ *     This is the source code of rover project.
+ *     Copyright (C)   Ali Nasrabadi  2018-2018
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package com.nasrabadiam.rover.engine;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class DensityPyramidTest {
+
+    @Test
+    public void countsCellsInTheTilesAboveThem() {
+        DensityPyramid pyramid = new DensityPyramid(DensityPyramid.levelsFor(100, 40));
+        assertEquals(7, pyramid.levels());
+
+        pyramid.add(0, 0);
+        pyramid.add(1, 1);
+        pyramid.add(2, 0);
+        pyramid.add(99, 39);
+
+        assertEquals(2, pyramid.count(1, 0, 0));
+        assertEquals(1, pyramid.count(1, 1, 0));
+        assertEquals(3, pyramid.count(2, 0, 0));
+        assertEquals(1, pyramid.count(2, 24, 9));
+        assertEquals(4, pyramid.count(7, 0, 0));
+        assertEquals(0, pyramid.count(3, 5, 5));
+
+        pyramid.clear();
+        assertEquals(0, pyramid.count(7, 0, 0));
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ *     This is the source code of rover project.
+ *     Copyright (C)   Ali Nasrabadi  2018-2018
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package com.nasrabadiam.rover.engine;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class FrameStatsTest {
+
+    private static final long MILLI = 1000000L;
+
+    @Test
+    public void countsFramesMissedWhileAnimating() {
+        FrameStats stats = new FrameStats();
+        stats.recordFrame(0, 3 * MILLI);
+        stats.recordFrame(17 * MILLI, 20 * MILLI);
+        stats.recordFrame(67 * MILLI, 90 * MILLI);
+        stats.recordFrame(2000 * MILLI, 2002 * MILLI);
+
+        assertEquals(4, stats.getFrames());
+        assertEquals(2, stats.getDroppedFrames());
+        assertEquals(4, stats.getDrawPercentileMillis(50));
+        assertEquals(24, stats.getDrawPercentileMillis(100));
+        assertEquals(23, stats.getMaxDrawMillis());
+    }
+
+    @Test
+    public void measuresLatencyAndStepRate() {
+        FrameStats stats = new FrameStats();
+        stats.recordSnapshotShown(0, 0, 10 * MILLI);
+        stats.recordSnapshotShown(500, 500 * MILLI, 520 * MILLI);
+        stats.recordSnapshotShown(1000, 1000 * MILLI, 1010 * MILLI);
+
+        assertEquals(13, stats.getAverageLatencyMillis());
+        assertEquals(1000.0, stats.getStepsPerSecond(), 0.001);
+
+        stats.reset();
+        assertEquals(0, stats.getAverageLatencyMillis());
+        assertEquals(0.0, stats.getStepsPerSecond(), 0.001);
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ *     This is the source code of rover project.
+ *     Copyright (C)   Ali Nasrabadi  2018-2018
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package com.nasrabadiam.rover.engine;
+
+import com.nasrabadiam.rover.DIRECTION;
+import com.nasrabadiam.rover.Position;
+import com.nasrabadiam.rover.model.RoverResponseModel;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class MissionReplayTest {
+
+    private final RoverEngine engine = new RoverEngine();
+
+    @Test
+    public void seekMatchesStepping() {
+        Random random = new Random(11);
+        for (int index = 0; index < 300; index++) {
+            RoverResponseModel mission = Missions.random(random, 30, 30, random.nextInt(40),
+                    Missions.randomCommand(random, 1 + random.nextInt(300), 1 + random.nextInt(8)));
+            MissionReplay replay = MissionReplay.record(engine, mission, 1 + random.nextInt(20));
+
+            Simulation simulation = engine.start(mission, null);
+            int pathCount = 0;
+            for (int step = 0; step <= replay.length(); step++) {
+                MissionReplay.Frame frame = replay.seek(step);
+                long state = simulation.state();
+                assertEquals(new Position(RoverState.x(state), RoverState.y(state)), frame.getPosition());
+                assertEquals(Headings.toDirection(RoverState.heading(state)), frame.getDirection());
+                assertEquals(pathCount, frame.getPathCount());
+
+                if (step < replay.length()) {
+                    if (mission.command.charAt(step) == 'M')
+                        pathCount++;
+                    simulation.step();
+                }
+            }
+            assertEquals(replay.getResult().getStepsExecuted(), replay.length());
+            assertEquals(pathCount, replay.getPaths().size());
+            assertEquals(pathCount, replay.snapshotAt(replay.length()).getPaths().size());
+        }
+    }
+
+    @Test
+    public void pathsFollowTheRover() {
+        RoverResponseModel mission = Missions.random(new Random(3), 10, 10, 0, "MRMM");
+        mission.startPoint = new Position(0, 0);
+        MissionReplay replay = MissionReplay.record(engine, mission, 2);
+
+        MissionReplay.Frame frame = replay.seek(3);
+        assertEquals(new Position(1, 1), frame.getPosition());
+        assertEquals(2, frame.getPathCount());
+        assertEquals(0, replay.getPaths().x(1));
+        assertEquals(1, replay.getPaths().y(1));
+        assertEquals(DIRECTION.TOP, replay.getPaths().from(1));
+        assertEquals(DIRECTION.RIGHT, replay.getPaths().to(1));
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ *     This is the source code of rover project.
+ *     Copyright (C)   Ali Nasrabadi  2018-2018
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package com.nasrabadiam.rover.engine;
+
+import com.nasrabadiam.rover.LandSize;
+import com.nasrabadiam.rover.Position;
+import com.nasrabadiam.rover.model.RoverResponseModel;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Random missions for comparing the fast paths of the engine with plain stepping.
+ */
+class Missions {
+
+    static RoverResponseModel random(Random random, int width, int height, int weirCount, String command) {
+        RoverResponseModel mission = new RoverResponseModel();
+        mission.landSize = new LandSize(width, height);
+        mission.startPoint = new Position(random.nextInt(width), random.nextInt(height));
+        List<Position> weirs = new ArrayList<>();
+        for (int index = 0; index < weirCount; index++) {
+            weirs.add(new Position(random.nextInt(width), random.nextInt(height)));
+        }
+        weirs.remove(mission.startPoint);
+        mission.weirs = weirs;
+        mission.command = command;
+        return mission;
+    }
+
+    /**
+     * A command made of straight runs of up to maxRun moves with turns in between.
+     */
+    static String randomCommand(Random random, int length, int maxRun) {
+        StringBuilder command = new StringBuilder(length);
+        while (command.length() < length) {
+            int run = random.nextInt(maxRun + 1);
+            for (int index = 0; index < run; index++) {
+                command.append('M');
+            }
+            command.append(random.nextBoolean() ? 'L' : 'R');
+        }
+        return command.toString();
+    }
+
+    /**
+     * Runs the mission one {@link Simulation#step()} at a time.
+     */
+    static MissionResult stepByStep(RoverResponseModel mission) {
+        Simulation simulation = new RoverEngine().start(mission, null);
+        while (!simulation.isFinished()) {
+            simulation.step();
+        }
+        return simulation.getResult();
+    }
+
+    static void assertSameResult(MissionResult expected, MissionResult actual) {
+        assertEquals(expected.getStatus(), actual.getStatus());
+        assertEquals(expected.getPosition(), actual.getPosition());
+        assertEquals(expected.getDirection(), actual.getDirection());
+        assertEquals(expected.getStepsExecuted(), actual.getStepsExecuted());
+        assertEquals(expected.getFailureStep(), actual.getFailureStep());
+        assertEquals(expected.getFailurePosition(), actual.getFailurePosition());
+    }
+}
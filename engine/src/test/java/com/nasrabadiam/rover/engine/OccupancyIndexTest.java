@@ -0,0 +1,64 @@
+/*
+ *     This is the source code of rover project.
+ *     Copyright (C)   Ali Nasrabadi  2018-2018
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package com.nasrabadiam.rover.engine;
+
+import com.nasrabadiam.rover.Position;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class OccupancyIndexTest {
+
+    private final List<Position> weirs = Arrays.asList(
+            new Position(0, 0), new Position(3, 7), new Position(9, 19), new Position(12, 2));
+
+    @Test
+    public void bitSetIndexFindsWeirsInsideLand() {
+        OccupancyIndex index = OccupancyIndex.of(weirs, 10, 20);
+
+        assertTrue(index.isOccupied(0, 0));
+        assertTrue(index.isOccupied(new Position(3, 7)));
+        assertTrue(index.isOccupied(9, 19));
+        assertFalse(index.isOccupied(7, 3));
+        assertFalse(index.isOccupied(12, 2));
+        assertFalse(index.isOccupied(-1, 0));
+    }
+
+    @Test
+    public void hashIndexIsUsedForHugeLands() {
+        OccupancyIndex index = OccupancyIndex.of(weirs, 1 << 20, 1 << 20);
+
+        assertTrue(index.isOccupied(12, 2));
+        assertTrue(index.isOccupied(3, 7));
+        assertFalse(index.isOccupied(7, 3));
+        assertFalse(index.isOccupied(2, 12));
+    }
+
+    @Test
+    public void equalPositionsHaveEqualHashCodes() {
+        assertEquals(new Position(4, 5).hashCode(), new Position(4, 5).hashCode());
+    }
+}
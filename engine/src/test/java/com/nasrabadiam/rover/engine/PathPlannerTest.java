@@ -0,0 +1,296 @@
+/*
+ *     This is the source code of rover project.
+ *     Copyright (C)   Ali Nasrabadi  2018-2018
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package com.nasrabadiam.rover.engine;
+
+import com.nasrabadiam.rover.DIRECTION;
+import com.nasrabadiam.rover.LandSize;
+import com.nasrabadiam.rover.Position;
+import com.nasrabadiam.rover.model.RoverResponseModel;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+public class PathPlannerTest {
+
+    private final RoverEngine engine = new RoverEngine();
+
+    @Test
+    public void plansAroundWeir() {
+        List<Position> weirs = Arrays.asList(new Position(0, 2));
+        String command = new PathPlanner().plan(new Position(0, 0), DIRECTION.TOP, new Position(0, 4),
+                weirs, LandSize.DEFAULT);
+
+        assertEquals(9, command.length());
+        assertReaches(new Position(0, 0), new Position(0, 4), weirs, LandSize.DEFAULT, command);
+    }
+
+    @Test
+    public void returnsNullWhenTargetIsWalledIn() {
+        List<Position> weirs = Arrays.asList(new Position(4, 5), new Position(6, 5),
+                new Position(5, 4), new Position(5, 6));
+
+        assertNull(new PathPlanner().plan(new Position(0, 0), DIRECTION.TOP, new Position(5, 5),
+                weirs, LandSize.DEFAULT));
+    }
+
+    @Test
+    public void jumpPointSearchFindsShortestCommands() {
+        Random random = new Random(9);
+        PathPlanner jumping = new PathPlanner(true);
+        PathPlanner plain = new PathPlanner(false);
+        for (int index = 0; index < 500; index++) {
+            int size = 5 + random.nextInt(30);
+            LandSize landSize = new LandSize(size, size);
+            RoverResponseModel mission = Missions.random(random, size, size, random.nextInt(size * size / 3), "");
+            Position target = new Position(random.nextInt(size), random.nextInt(size));
+            DIRECTION heading = DIRECTION.values()[random.nextInt(4)];
+
+            String expected = plain.plan(mission.startPoint, heading, target, mission.weirs, landSize);
+            String actual = jumping.plan(mission.startPoint, heading, target, mission.weirs, landSize);
+            if (expected == null) {
+                assertNull(actual);
+            } else {
+                assertNotNull(actual);
+                assertEquals(expected.length(), actual.length());
+                if (heading == DIRECTION.TOP)
+                    assertReaches(mission.startPoint, target, mission.weirs, landSize, actual);
+            }
+        }
+    }
+
+    @Test
+    public void jumpPointSearchTurnsRightAfterWeirLine() {
+        List<Position> weirs = Arrays.asList(new Position(0, 1), new Position(1, 1));
+        String command = new PathPlanner(true).plan(new Position(0, 0), DIRECTION.TOP, new Position(0, 2),
+                weirs, new LandSize(4, 3));
+
+        assertEquals("RMMLMMLMM", command);
+    }
+
+    @Test
+    public void plansShortestCommandsOfSmallLands() {
+        Random random = new Random(20);
+        PathPlanner jumping = new PathPlanner(true);
+        PathPlanner plain = new PathPlanner(false);
+        for (int index = 0; index < 3000; index++) {
+            int width = 2 + random.nextInt(12);
+            int height = 2 + random.nextInt(12);
+            LandSize landSize = new LandSize(width, height);
+            boolean[][] blocked = new boolean[width][height];
+            List<Position> weirs = new ArrayList<>();
+            double density = random.nextDouble() * 0.5;
+            for (int x = 0; x < width; x++) {
+                for (int y = 0; y < height; y++) {
+                    if (random.nextDouble() < density) {
+                        blocked[x][y] = true;
+                        weirs.add(new Position(x, y));
+                    }
+                }
+            }
+            Position start = new Position(random.nextInt(width), random.nextInt(height));
+            Position target = new Position(random.nextInt(width), random.nextInt(height));
+            if (blocked[start.getX()][start.getY()])
+                continue;
+            int heading = random.nextInt(4);
+
+            int expected = blocked[target.getX()][target.getY()] ? -1 : shortestCommandLength(blocked, start, heading, target);
+            String fromPlain = plain.plan(start, Headings.toDirection(heading), target, weirs, landSize);
+            String fromJumping = jumping.plan(start, Headings.toDirection(heading), target, weirs, landSize);
+            assertEquals(expected, fromPlain == null ? -1 : fromPlain.length());
+            assertEquals(expected, fromJumping == null ? -1 : fromJumping.length());
+        }
+    }
+
+    /**
+     * Every way to put up to two weirs on a small land, so each has a line of its own with
+     * room to turn around it, from every start to every target.
+     */
+    @Test
+    public void jumpPointSearchFindsShortestCommandsAroundEveryPairOfWeirs() {
+        int width = 4;
+        int height = 3;
+        int cellCount = width * height;
+        LandSize landSize = new LandSize(width, height);
+        PathPlanner jumping = new PathPlanner(true);
+        for (int first = -1; first < cellCount; first++) {
+            for (int second = first + 1; second < cellCount; second++) {
+                boolean[][] blocked = new boolean[width][height];
+                List<Position> weirs = new ArrayList<>();
+                for (int cell : new int[]{first, second}) {
+                    if (cell < 0)
+                        continue;
+                    blocked[cell % width][cell / width] = true;
+                    weirs.add(new Position(cell % width, cell / width));
+                }
+                for (int from = 0; from < cellCount; from++) {
+                    for (int to = 0; to < cellCount; to++) {
+                        Position start = new Position(from % width, from / width);
+                        Position target = new Position(to % width, to / width);
+                        if (blocked[start.getX()][start.getY()] || blocked[target.getX()][target.getY()])
+                            continue;
+                        for (int heading = 0; heading < 4; heading++) {
+                            String command = jumping.plan(start, Headings.toDirection(heading), target, weirs, landSize);
+                            assertEquals(weirs + " " + start + " to " + target,
+                                    shortestCommandLength(blocked, start, heading, target),
+                                    command == null ? -1 : command.length());
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void returnsEmptyCommandWhenAlreadyOnWalledInTarget() {
+        List<Position> weirs = Arrays.asList(new Position(4, 5), new Position(6, 5),
+                new Position(5, 4), new Position(5, 6));
+
+        assertEquals("", new PathPlanner().plan(new Position(5, 5), DIRECTION.TOP, new Position(5, 5),
+                weirs, LandSize.DEFAULT));
+    }
+
+    @Test
+    public void plansWithinExpansionLimitOnLargeLands() {
+        List<Position> weirs = randomWeirs(new Random(1), 5000, 5000);
+        LandSize landSize = new LandSize(5000, 5000);
+        Position start = new Position(0, 0);
+        Position target = new Position(4999, 4999);
+
+        assertNotNull(new PathPlanner(false, 12000).plan(start, DIRECTION.TOP, target, weirs, landSize));
+        // jump point search reaches the target expanding about two thirds of the states
+        assertNull(new PathPlanner(false, 7000).plan(start, DIRECTION.TOP, target, weirs, landSize));
+        assertNotNull(new PathPlanner(true, 7000).plan(start, DIRECTION.TOP, target, weirs, landSize));
+    }
+
+    @Test
+    public void returnsNullForUnreachableTargetOnLargeLand() {
+        List<Position> weirs = randomWeirs(new Random(2), 3000, 5000);
+        weirs.addAll(Arrays.asList(new Position(1499, 1500), new Position(1501, 1500),
+                new Position(1500, 1499), new Position(1500, 1501)));
+
+        assertNull(new PathPlanner().plan(new Position(0, 0), DIRECTION.TOP, new Position(1500, 1500),
+                weirs, new LandSize(3000, 3000)));
+    }
+
+    @Test
+    public void givesUpOnLargeWalledInArea() {
+        List<Position> weirs = new ArrayList<>();
+        for (int offset = 1000; offset <= 1200; offset++) {
+            weirs.add(new Position(offset, 1000));
+            weirs.add(new Position(offset, 1200));
+            weirs.add(new Position(1000, offset));
+            weirs.add(new Position(1200, offset));
+        }
+
+        assertNull(new PathPlanner(false, 10000).plan(new Position(0, 0), DIRECTION.TOP,
+                new Position(1100, 1100), weirs, new LandSize(3000, 3000)));
+    }
+
+    @Test
+    public void returnsNullWhenCancelled() {
+        CancellationToken token = new CancellationToken();
+        token.cancel();
+
+        assertNull(new PathPlanner().plan(new Position(0, 0), DIRECTION.TOP, new Position(4999, 4999),
+                randomWeirs(new Random(1), 5000, 5000), new LandSize(5000, 5000), token));
+    }
+
+    @Test
+    public void suggestsSafeCommandForCrashingMission() {
+        RoverResponseModel mission = new RoverResponseModel();
+        mission.startPoint = new Position(2, 2);
+        mission.weirs = Arrays.asList(new Position(2, 4));
+        mission.command = "MMMMRMM";
+
+        assertEquals(MissionResult.Status.CRASHED, engine.run(mission).getStatus());
+        String command = new PathPlanner().planAround(engine, mission);
+        assertReaches(mission.startPoint, new Position(4, 6), mission.weirs, LandSize.DEFAULT, command);
+    }
+
+    /**
+     * Breadth first search over every (position, heading) state, the reference the planners
+     * are checked against.
+     *
+     * @return the number of commands, or -1 if the target can't be reached.
+     */
+    private static int shortestCommandLength(boolean[][] blocked, Position start, int heading, Position target) {
+        int width = blocked.length;
+        int height = blocked[0].length;
+        int[] distances = new int[width * height * 4];
+        Arrays.fill(distances, -1);
+        int[] queue = new int[distances.length];
+        int head = 0;
+        int tail = 0;
+        int first = (start.getY() * width + start.getX()) * 4 + heading;
+        distances[first] = 0;
+        queue[tail++] = first;
+        while (head < tail) {
+            int state = queue[head++];
+            int cell = state / 4;
+            int current = state % 4;
+            int x = cell % width;
+            int y = cell / width;
+            if (x == target.getX() && y == target.getY())
+                return distances[state];
+
+            int nextX = x + Headings.DX[current];
+            int nextY = y + Headings.DY[current];
+            int forward = nextX >= 0 && nextY >= 0 && nextX < width && nextY < height && !blocked[nextX][nextY]
+                    ? (nextY * width + nextX) * 4 + current : -1;
+            int[] nextStates = {cell * 4 + Headings.TURN_LEFT[current], cell * 4 + Headings.TURN_RIGHT[current], forward};
+            for (int next : nextStates) {
+                if (next >= 0 && distances[next] < 0) {
+                    distances[next] = distances[state] + 1;
+                    queue[tail++] = next;
+                }
+            }
+        }
+        return -1;
+    }
+
+    private static List<Position> randomWeirs(Random random, int size, int count) {
+        List<Position> weirs = new ArrayList<>();
+        for (int index = 0; index < count; index++) {
+            weirs.add(new Position(1 + random.nextInt(size - 2), 1 + random.nextInt(size - 2)));
+        }
+        return weirs;
+    }
+
+    private void assertReaches(Position start, Position target, List<Position> weirs, LandSize landSize,
+                               String command) {
+        RoverResponseModel mission = new RoverResponseModel();
+        mission.startPoint = start;
+        mission.weirs = weirs;
+        mission.landSize = landSize;
+        mission.command = command;
+        MissionResult result = engine.run(mission);
+
+        assertEquals(MissionResult.Status.COMPLETED, result.getStatus());
+        assertEquals(target, result.getPosition());
+    }
+}
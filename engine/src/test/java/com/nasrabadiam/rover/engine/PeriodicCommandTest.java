@@ -0,0 +1,104 @@
+/*
+ *     This is the source code of rover project.
+ *     Copyright (C)   Ali Nasrabadi  2018-2018
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package com.nasrabadiam.rover.engine;
+
+import com.nasrabadiam.rover.LandSize;
+import com.nasrabadiam.rover.Position;
+import com.nasrabadiam.rover.model.RoverResponseModel;
+
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class PeriodicCommandTest {
+
+    private final RoverEngine engine = new RoverEngine();
+
+    @Test
+    public void findsSmallestPeriod() {
+        assertEquals(3, CommandCompiler.smallestPeriod("MRMMRMMRMMR"));
+        assertEquals(1, CommandCompiler.smallestPeriod("MMMM"));
+        assertEquals(5, CommandCompiler.smallestPeriod("MMRLR"));
+    }
+
+    @Test
+    public void compilesPeriodAndTail() {
+        CommandProgram program = CommandCompiler.compile(repeat("MMRMLM", 20) + "MMR");
+
+        assertEquals(6, program.period());
+        assertEquals(5, program.periodProgram().size());
+        assertEquals(2, program.tailProgram().size());
+    }
+
+    @Test
+    public void skipsPeriodsOnOpenLand() {
+        RoverResponseModel mission = new RoverResponseModel();
+        mission.landSize = new LandSize(1 << 20, 1 << 20);
+        mission.startPoint = new Position(0, 0);
+        mission.weirs = Collections.singletonList(new Position(300000, 300001));
+        mission.command = repeat("MRML", 1000000);
+
+        MissionResult result = engine.run(mission);
+
+        assertEquals(MissionResult.Status.CRASHED, result.getStatus());
+        assertEquals(new Position(300000, 300001), result.getPosition());
+        assertEquals(300000 * 4, result.getFailureStep());
+    }
+
+    @Test
+    public void periodicRunMatchesStepping() {
+        Random random = new Random(3);
+        for (int index = 0; index < 3000; index++) {
+            String pattern = Missions.randomCommand(random, 1 + random.nextInt(8), 3);
+            if (random.nextBoolean())
+                pattern = pattern.substring(0, pattern.length() - 1);
+            String command = repeat(pattern, CommandCompiler.MIN_PERIODS + random.nextInt(200))
+                    + pattern.substring(0, random.nextInt(pattern.length() + 1));
+            int size = 10 + random.nextInt(200);
+            RoverResponseModel mission = Missions.random(random, size, size, random.nextInt(size / 2), command);
+
+            Missions.assertSameResult(Missions.stepByStep(mission), engine.run(mission));
+        }
+    }
+
+    @Test
+    public void closedCyclesMatchStepping() {
+        Random random = new Random(5);
+        String[] patterns = {"MR", "MMRR", "MLMMR", "RRMMLLMMLL", "R", "RMRMMLM"};
+        for (int index = 0; index < 1000; index++) {
+            String pattern = patterns[random.nextInt(patterns.length)];
+            RoverResponseModel mission = Missions.random(random, 12, 12, random.nextInt(10),
+                    repeat(pattern, CommandCompiler.MIN_PERIODS + random.nextInt(100)));
+
+            Missions.assertSameResult(Missions.stepByStep(mission), engine.run(mission));
+        }
+    }
+
+    private static String repeat(String pattern, int times) {
+        StringBuilder command = new StringBuilder(pattern.length() * times);
+        for (int index = 0; index < times; index++) {
+            command.append(pattern);
+        }
+        return command.toString();
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ *     This is the source code of rover project.
+ *     Copyright (C)   Ali Nasrabadi  2018-2018
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package com.nasrabadiam.rover.engine;
+
+import com.nasrabadiam.rover.DIRECTION;
+import com.nasrabadiam.rover.LandSize;
+import com.nasrabadiam.rover.Path;
+import com.nasrabadiam.rover.Position;
+import com.nasrabadiam.rover.Rover;
+import com.nasrabadiam.rover.model.RoverResponseModel;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class RoverEngineTest {
+
+    private final RoverEngine engine = new RoverEngine();
+
+    private static RoverResponseModel mission(Position start, String command, Position... weirs) {
+        RoverResponseModel mission = new RoverResponseModel();
+        mission.startPoint = start;
+        mission.command = command;
+        mission.weirs = new ArrayList<>(Arrays.asList(weirs));
+        return mission;
+    }
+
+    @Test
+    public void completesCommand() {
+        MissionResult result = engine.run(mission(new Position(0, 0), "MMRMMLM"));
+
+        assertEquals(MissionResult.Status.COMPLETED, result.getStatus());
+        assertEquals(new Position(2, 3), result.getPosition());
+        assertEquals(DIRECTION.TOP, result.getDirection());
+        assertEquals(7, result.getStepsExecuted());
+        assertEquals(-1, result.getFailureStep());
+        assertNull(result.getFailurePosition());
+    }
+
+    @Test
+    public void crashesIntoWeir() {
+        MissionResult result = engine.run(mission(new Position(0, 0), "MRMMM", new Position(2, 1)));
+
+        assertEquals(MissionResult.Status.CRASHED, result.getStatus());
+        assertEquals(3, result.getFailureStep());
+        assertEquals(new Position(2, 1), result.getPosition());
+        assertEquals(4, result.getStepsExecuted());
+    }
+
+    @Test
+    public void leavesLand() {
+        MissionResult result = engine.run(mission(new Position(0, 0), "LMM"));
+
+        assertEquals(MissionResult.Status.OUT_OF_LAND, result.getStatus());
+        assertEquals(1, result.getFailureStep());
+        assertEquals(new Position(0, 0), result.getPosition());
+        assertEquals(new Position(-1, 0), result.getFailurePosition());
+        assertEquals(DIRECTION.LEFT, result.getDirection());
+    }
+
+    @Test
+    public void endsRightAwayWhenStartingOffLand() {
+        WorldPublisher publisher = new WorldPublisher(new SegmentLog(), null);
+        MissionResult result = engine.run(mission(new Position(-1, 2), "RMMM"), publisher);
+
+        assertEquals(MissionResult.Status.OUT_OF_LAND, result.getStatus());
+        assertEquals(0, result.getFailureStep());
+        assertEquals(new Position(-1, 2), result.getFailurePosition());
+        assertEquals(0, publisher.getLatest().getPaths().size());
+    }
+
+    @Test
+    public void usesLandSizeOfMission() {
+        RoverResponseModel mission = mission(new Position(0, 0), "RMMMMMMMMMMMM");
+        assertEquals(MissionResult.Status.OUT_OF_LAND, engine.run(mission).getStatus());
+
+        mission.landSize = new LandSize(100, 100);
+        MissionResult result = engine.run(mission);
+        assertEquals(MissionResult.Status.COMPLETED, result.getStatus());
+        assertEquals(new Position(12, 0), result.getPosition());
+    }
+
+    @Test
+    public void fastForwardMatchesStepping() {
+        Random random = new Random(42);
+        for (int index = 0; index < 2000; index++) {
+            RoverResponseModel mission = Missions.random(random, 40, 30, random.nextInt(60),
+                    Missions.randomCommand(random, 1 + random.nextInt(200), 1 + random.nextInt(10)));
+
+            Missions.assertSameResult(Missions.stepByStep(mission), engine.run(mission));
+        }
+    }
+
+    @Test
+    public void reportsEventsToListener() {
+        final List<String> events = new ArrayList<>();
+        engine.run(mission(new Position(0, 0), "MRM", new Position(1, 1)), new MissionListener() {
+            @Override
+            public void onRoverChanged(Rover rover, Position position) {
+                events.add("rover " + rover.getDirection() + position);
+            }
+
+            @Override
+            public void onPathAdded(Path path, Position position) {
+                events.add("path " + path.getStartFrom() + "-" + path.getEndTo() + position);
+            }
+
+            @Override
+            public void onCrash(int step, Position position) {
+                events.add("crash " + step + position);
+            }
+
+            @Override
+            public void onOutOfLand(int step, Position nextPosition) {
+                events.add("out " + step + nextPosition);
+            }
+        });
+
+        assertEquals(Arrays.asList(
+                "rover TOP{x=0,y=0}",
+                "path TOP-TOP{x=0,y=0}",
+                "rover TOP{x=0,y=1}",
+                "rover RIGHT{x=0,y=1}",
+                "path TOP-RIGHT{x=0,y=1}",
+                "rover RIGHT{x=1,y=1}",
+                "crash 2{x=1,y=1}"), events);
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ *     This is the source code of rover project.
+ *     Copyright (C)   Ali Nasrabadi  2018-2018
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package com.nasrabadiam.rover.engine;
+
+import com.nasrabadiam.rover.DIRECTION;
+import com.nasrabadiam.rover.Rover;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class RoverStateTest {
+
+    @Test
+    public void packsAndUnpacksCoordinates() {
+        int[] values = {0, 1, -1, 9, 19, 123456, -123456, (1 << 30) - 1, -(1 << 30)};
+        for (int x : values) {
+            for (int y : values) {
+                for (int heading = 0; heading < 4; heading++) {
+                    long state = RoverState.pack(x, y, heading);
+                    assertEquals(x, RoverState.x(state));
+                    assertEquals(y, RoverState.y(state));
+                    assertEquals(heading, RoverState.heading(state));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void roverTurnsThroughAllDirections() {
+        Rover rover = new Rover(DIRECTION.TOP);
+
+        rover.turnLeft();
+        assertEquals(DIRECTION.LEFT, rover.getDirection());
+        rover.turnLeft();
+        assertEquals(DIRECTION.BOTTOM, rover.getDirection());
+        rover.turnLeft();
+        assertEquals(DIRECTION.RIGHT, rover.getDirection());
+        rover.turnRight();
+        assertEquals(DIRECTION.BOTTOM, rover.getDirection());
+        rover.turnRight();
+        assertEquals(DIRECTION.LEFT, rover.getDirection());
+        rover.turnRight();
+        assertEquals(DIRECTION.TOP, rover.getDirection());
+    }
+}
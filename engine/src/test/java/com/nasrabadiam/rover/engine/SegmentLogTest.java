@@ -0,0 +1,142 @@
+/*
+ *     This is the source code of rover project.
+ *     Copyright (C)   Ali Nasrabadi  2018-2018
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.nasrabadiam.rover.engine;
+
+import com.nasrabadiam.rover.DIRECTION;
+import com.nasrabadiam.rover.Path;
+import com.nasrabadiam.rover.Position;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+public class SegmentLogTest {
+
+    private static final int CHUNK = SegmentLog.CHUNK_SIZE;
+    private static final long TWO_CHUNKS = 2L * CHUNK * SegmentLog.BYTES_PER_SEGMENT;
+
+    @Test
+    public void packsSegments() {
+        SegmentLog log = new SegmentLog();
+        log.add(new Path(DIRECTION.TOP, DIRECTION.RIGHT), new Position(3, 7));
+        log.add(1 << 29, 123456, Headings.BOTTOM, Headings.LEFT);
+        SegmentLog.View view = log.view();
+
+        assertEquals(2, view.size());
+        assertEquals(3, view.x(0));
+        assertEquals(7, view.y(0));
+        assertEquals(DIRECTION.TOP, view.from(0));
+        assertEquals(DIRECTION.RIGHT, view.to(0));
+        assertEquals(1 << 29, view.x(1));
+        assertEquals(123456, view.y(1));
+        assertEquals(DIRECTION.BOTTOM, view.from(1));
+        assertEquals(DIRECTION.LEFT, view.to(1));
+    }
+
+    @Test
+    public void rejectsNegativeCoordinates() {
+        SegmentLog log = new SegmentLog();
+        try {
+            log.add(-1, 0, Headings.LEFT, Headings.LEFT);
+            fail("expected an IllegalArgumentException");
+        } catch (IllegalArgumentException expected) {
+        }
+        assertEquals(0, log.view().size());
+    }
+
+    @Test
+    public void downsamplesWhenFull() {
+        SegmentLog log = new SegmentLog(TWO_CHUNKS, SegmentLog.OverflowPolicy.DOWNSAMPLE, null);
+        for (int x = 0; x < 2 * CHUNK; x++) {
+            log.add(x, 0, Headings.RIGHT, Headings.RIGHT);
+        }
+        SegmentLog.View full = log.view();
+        log.add(2 * CHUNK, 0, Headings.RIGHT, Headings.RIGHT);
+        SegmentLog.View halved = log.view();
+
+        assertEquals(2, log.stride());
+        assertEquals(0, halved.first());
+        assertEquals(CHUNK + 1, halved.size());
+        assertEquals(0, halved.x(0));
+        assertEquals(2, halved.x(1));
+        assertEquals(2 * CHUNK, halved.x(CHUNK));
+        assertFalse(halved.continues(full));
+        // the view from before keeps every segment
+        assertEquals(2 * CHUNK, full.size());
+        assertEquals(1, full.x(1));
+
+        // from now on only every second segment is kept, still from the whole mission
+        for (int x = 2 * CHUNK + 1; x < 8 * CHUNK; x++) {
+            log.add(x, 0, Headings.RIGHT, Headings.RIGHT);
+        }
+        SegmentLog.View view = log.view();
+        assertEquals(8 * CHUNK, log.addedCount());
+        assertEquals(4, log.stride());
+        assertEquals(0, view.x(0));
+        assertEquals(2 * CHUNK, view.size());
+        for (int index = 1; index < view.size(); index++) {
+            assertEquals(view.x(index - 1) + log.stride(), view.x(index));
+        }
+    }
+
+    @Test
+    public void spillsOldChunksToFile() throws IOException {
+        File file = File.createTempFile("segments", ".bin");
+        file.deleteOnExit();
+        SegmentLog log = new SegmentLog(TWO_CHUNKS, SegmentLog.OverflowPolicy.SPILL, file);
+        try {
+            for (int x = 0; x < 5 * CHUNK + 10; x++) {
+                log.add(x, 1, Headings.RIGHT, Headings.TOP);
+            }
+            SegmentLog.View view = log.view();
+            assertEquals(4L * CHUNK, log.spilledCount());
+            assertEquals(4 * CHUNK, view.first());
+            assertEquals(4 * CHUNK, view.x(view.first()));
+
+            final List<Integer> xs = new ArrayList<>();
+            log.forEachSpilled(new SegmentLog.Visitor() {
+                @Override
+                public void visit(int x, int y, DIRECTION from, DIRECTION to) {
+                    assertEquals(1, y);
+                    assertEquals(DIRECTION.RIGHT, from);
+                    assertEquals(DIRECTION.TOP, to);
+                    xs.add(x);
+                }
+            });
+            assertEquals(4 * CHUNK, xs.size());
+            for (int index = 0; index < xs.size(); index++) {
+                assertEquals(index, (int) xs.get(index));
+            }
+        } finally {
+            log.close();
+        }
+        assertEquals(4L * CHUNK * SegmentLog.BYTES_PER_SEGMENT, file.length());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void spillingNeedsFile() {
+        new SegmentLog(TWO_CHUNKS, SegmentLog.OverflowPolicy.SPILL, null);
+    }
+}
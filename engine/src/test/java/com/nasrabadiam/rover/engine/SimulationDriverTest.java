@@ -0,0 +1,136 @@
+/*
+ *     This is the source code of rover project.
+ *     Copyright (C)   Ali Nasrabadi  2018-2018
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package com.nasrabadiam.rover.engine;
+
+import com.nasrabadiam.rover.Position;
+import com.nasrabadiam.rover.model.RoverResponseModel;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class SimulationDriverTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final RoverEngine engine = new RoverEngine();
+
+    private static RoverResponseModel mission(String command) {
+        RoverResponseModel mission = new RoverResponseModel();
+        mission.startPoint = new Position(0, 0);
+        mission.command = command;
+        mission.weirs = new ArrayList<>();
+        return mission;
+    }
+
+    @Test
+    public void stepsOncePerTick() {
+        VirtualTickScheduler scheduler = new VirtualTickScheduler(SECOND);
+        final AtomicReference<MissionResult> result = new AtomicReference<>();
+        SimulationDriver driver = new SimulationDriver(engine.start(mission("MMMM"), null), scheduler,
+                new SimulationDriver.OnFinishedListener() {
+                    @Override
+                    public void onFinished(MissionResult finished) {
+                        result.set(finished);
+                    }
+                });
+        driver.start();
+
+        assertEquals(3, scheduler.advance(3 * SECOND));
+        assertNull(result.get());
+        assertEquals(1, scheduler.advance(10 * SECOND));
+        assertEquals(new Position(0, 4), result.get().getPosition());
+        assertFalse(scheduler.isRunning());
+    }
+
+    @Test
+    public void pausesResumesAndStepsOnce() {
+        VirtualTickScheduler scheduler = new VirtualTickScheduler(SECOND);
+        Simulation simulation = engine.start(mission("MMMMMM"), null);
+        SimulationDriver driver = new SimulationDriver(simulation, scheduler, null);
+        driver.start();
+        scheduler.advance(2 * SECOND);
+
+        driver.pause();
+        assertEquals(0, scheduler.advance(5 * SECOND));
+
+        driver.stepOnce();
+        driver.stepOnce();
+        assertEquals(2, scheduler.advance(5 * SECOND));
+        assertEquals(4, RoverState.y(simulation.state()));
+
+        driver.resume();
+        scheduler.advance(5 * SECOND);
+        assertTrue(simulation.isFinished());
+        assertEquals(6, RoverState.y(simulation.state()));
+    }
+
+    @Test
+    public void stopsWhenCancelled() {
+        VirtualTickScheduler scheduler = new VirtualTickScheduler(SECOND);
+        Simulation simulation = engine.start(mission("MMMMMM"), null);
+        CancellationToken token = new CancellationToken();
+        final AtomicReference<MissionResult> result = new AtomicReference<>();
+        new SimulationDriver(simulation, scheduler, new SimulationDriver.OnFinishedListener() {
+            @Override
+            public void onFinished(MissionResult finished) {
+                result.set(finished);
+            }
+        }, token).start();
+        scheduler.advance(2 * SECOND);
+
+        token.cancel();
+        scheduler.advance(10 * SECOND);
+        assertFalse(scheduler.isRunning());
+        assertFalse(simulation.isFinished());
+        assertEquals(2, RoverState.y(simulation.state()));
+        assertNull(result.get());
+    }
+
+    @Test
+    public void fastForwardRunsToTheEnd() throws InterruptedException {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        final CountDownLatch finished = new CountDownLatch(1);
+        StringBuilder command = new StringBuilder();
+        for (int index = 0; index < 10000; index++) {
+            command.append(index % 2 == 0 ? 'L' : 'R');
+        }
+        new SimulationDriver(engine.start(mission(command.toString()), null),
+                new FastForwardTickScheduler(executor, 100), new SimulationDriver.OnFinishedListener() {
+            @Override
+            public void onFinished(MissionResult result) {
+                finished.countDown();
+            }
+        }).start();
+
+        assertTrue(finished.await(10, TimeUnit.SECONDS));
+        executor.shutdown();
+    }
+}
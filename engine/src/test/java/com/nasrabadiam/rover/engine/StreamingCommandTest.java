@@ -0,0 +1,111 @@
+/*
+ *     This is the source code of rover project.
+ *     Copyright (C)   Ali Nasrabadi  2018-2018
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.nasrabadiam.rover.engine;
+
+import com.nasrabadiam.rover.LandSize;
+import com.nasrabadiam.rover.Position;
+import com.nasrabadiam.rover.model.RoverResponseModel;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class StreamingCommandTest {
+
+    private final RoverEngine engine = new RoverEngine();
+
+    @Test
+    public void streamMatchesStepping() throws IOException {
+        Random random = new Random(7);
+        for (int index = 0; index < 2000; index++) {
+            RoverResponseModel mission = Missions.random(random, 40, 30, random.nextInt(60),
+                    Missions.randomCommand(random, 1 + random.nextInt(200), 1 + random.nextInt(10)));
+
+            Missions.assertSameResult(Missions.stepByStep(mission),
+                    engine.runStream(mission, new ChunkedReader(mission.command, 1 + random.nextInt(16))));
+        }
+    }
+
+    @Test
+    public void runsCommandsLongerThanBuffer() throws IOException {
+        RoverResponseModel mission = new RoverResponseModel();
+        mission.startPoint = new Position(0, 0);
+        mission.landSize = new LandSize(10, 100000);
+        mission.weirs = new ArrayList<>();
+        StringBuilder command = new StringBuilder();
+        for (int index = 0; index < Simulation.STREAM_BUFFER_SIZE * 3; index++) {
+            command.append("MLR");
+        }
+
+        MissionResult result = engine.runStream(mission, new StringReader(command.toString() + "\n"));
+
+        assertEquals(MissionResult.Status.COMPLETED, result.getStatus());
+        assertEquals(new Position(0, Simulation.STREAM_BUFFER_SIZE * 3), result.getPosition());
+        assertEquals(command.length(), result.getStepsExecuted());
+    }
+
+    @Test
+    public void reportsInvalidCharacterAtItsStep() throws IOException {
+        RoverResponseModel mission = new RoverResponseModel();
+        mission.startPoint = new Position(0, 0);
+        mission.weirs = new ArrayList<>();
+        try {
+            engine.runStream(mission, new StringReader("MM\nRX"));
+            fail();
+        } catch (InvalidCommandException e) {
+            assertEquals(3, e.getIndex());
+            assertEquals('X', e.getCharacter());
+        }
+    }
+
+    /**
+     * Hands out the command a few characters at a time, like a slow network body.
+     */
+    private static class ChunkedReader extends Reader {
+        private final String text;
+        private final int chunk;
+        private int position;
+
+        ChunkedReader(String text, int chunk) {
+            this.text = text;
+            this.chunk = chunk;
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) {
+            if (position == text.length())
+                return -1;
+            int count = Math.min(Math.min(length, chunk), text.length() - position);
+            text.getChars(position, position + count, buffer, offset);
+            position += count;
+            return count;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
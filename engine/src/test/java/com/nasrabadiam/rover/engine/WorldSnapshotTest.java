@@ -0,0 +1,124 @@
+/*
+ *     This is the source code of rover project.
+ *     Copyright (C)   Ali Nasrabadi  2018-2018
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package com.nasrabadiam.rover.engine;
+
+import com.nasrabadiam.rover.DIRECTION;
+import com.nasrabadiam.rover.LandSize;
+import com.nasrabadiam.rover.Position;
+import com.nasrabadiam.rover.model.RoverResponseModel;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class WorldSnapshotTest {
+
+    @Test
+    public void viewsDoNotChangeWhenLogGrows() {
+        SegmentLog log = new SegmentLog();
+        for (int x = 0; x < 5000; x++) {
+            log.add(x, 1, Headings.RIGHT, Headings.RIGHT);
+        }
+        SegmentLog.View earlier = log.view();
+        for (int x = 5000; x < 9000; x++) {
+            log.add(x, 2, Headings.RIGHT, Headings.TOP);
+        }
+        SegmentLog.View later = log.view();
+
+        assertEquals(5000, earlier.size());
+        assertEquals(4999, earlier.x(4999));
+        assertEquals(1, earlier.y(4999));
+        assertEquals(9000, later.size());
+        assertEquals(2, later.y(8999));
+        assertEquals(DIRECTION.TOP, later.to(8999));
+        assertTrue(later.continues(earlier));
+        assertFalse(earlier.continues(later));
+        assertFalse(later.upTo(100).continues(earlier));
+        assertFalse(new SegmentLog().view().continues(earlier));
+    }
+
+    @Test
+    public void dropsOldestChunksOverCap() {
+        SegmentLog log = new SegmentLog(2L * SegmentLog.CHUNK_SIZE * SegmentLog.BYTES_PER_SEGMENT);
+        SegmentLog.View first = null;
+        for (int x = 0; x < SegmentLog.CHUNK_SIZE * 5; x++) {
+            log.add(x, 0, Headings.RIGHT, Headings.RIGHT);
+            if (x == 10)
+                first = log.view();
+        }
+        SegmentLog.View view = log.view();
+
+        assertEquals(SegmentLog.CHUNK_SIZE * 3, view.first());
+        assertEquals(SegmentLog.CHUNK_SIZE * 5, view.end());
+        assertEquals(SegmentLog.CHUNK_SIZE * 3, view.x(view.first()));
+        assertEquals(10, first.x(10));
+        assertFalse(view.continues(first));
+    }
+
+    @Test
+    public void publishesWholeSnapshots() throws InterruptedException {
+        final WorldPublisher publisher = new WorldPublisher(new SegmentLog(), null);
+        RoverResponseModel mission = new RoverResponseModel();
+        mission.startPoint = new Position(0, 0);
+        mission.weirs = new ArrayList<>();
+        StringBuilder command = new StringBuilder();
+        for (int index = 0; index < 20000; index++) {
+            command.append(index % 4 < 2 ? "M" : index % 8 < 4 ? "R" : "L");
+        }
+        mission.command = command.toString();
+        mission.landSize = new LandSize(100000, 100000);
+
+        final AtomicBoolean done = new AtomicBoolean();
+        final AtomicReference<String> failure = new AtomicReference<>();
+        Thread reader = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                while (!done.get()) {
+                    WorldSnapshot snapshot = publisher.getLatest();
+                    if (snapshot == null)
+                        continue;
+                    SegmentLog.View paths = snapshot.getPaths();
+                    for (int index = paths.first(); index < paths.end(); index++) {
+                        if (paths.x(index) < 0 || paths.y(index) < 0)
+                            failure.set("bad segment at " + index);
+                    }
+                }
+            }
+        });
+        reader.start();
+        MissionResult result = new RoverEngine().run(mission, publisher);
+        done.set(true);
+        reader.join();
+
+        assertNull(failure.get());
+        WorldSnapshot last = publisher.getLatest();
+        assertEquals(result.getPosition(), last.getRoverPosition());
+        assertEquals(result.getDirection(), last.getRoverDirection());
+        assertEquals(10000, last.getPaths().size());
+        assertNull(last.getStatus());
+    }
+}